@@ -37,6 +37,10 @@ android {
     buildFeatures {
         compose = true
     }
+    testOptions {
+        // Local tests run against the stub android.jar; let Log and SystemClock return defaults
+        unitTests.isReturnDefaultValues = true
+    }
 }
 
 dependencies {
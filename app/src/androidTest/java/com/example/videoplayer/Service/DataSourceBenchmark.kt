@@ -0,0 +1,142 @@
+package com.example.videoplayer.Service
+
+import android.content.ContentUris
+import android.content.Context
+import android.net.Uri
+import android.os.Debug
+import android.os.SystemClock
+import android.provider.MediaStore
+import android.util.Log
+import androidx.annotation.OptIn
+import androidx.media3.common.C
+import androidx.media3.common.util.UnstableApi
+import androidx.media3.datasource.DataSource
+import androidx.media3.datasource.DataSpec
+import androidx.media3.datasource.DefaultDataSource
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.platform.app.InstrumentationRegistry
+import org.junit.Assert.assertEquals
+import org.junit.Assume.assumeTrue
+import org.junit.Test
+import org.junit.runner.RunWith
+import java.util.Locale
+
+private const val DATA_SOURCE_BENCHMARK_LOGGER = "DATA_SOURCE_BENCHMARK"
+
+/**
+ * Compares the default content resolver path with [MappedFileDataSource] by
+ * reading whole files the way an extractor does, in small chunks. Runs on the
+ * largest FLAC and the largest video on the device and logs the best of a few
+ * rounds per source; skipped when the device has neither, or the app cannot
+ * read them.
+ *
+ * Rounds alternate between the two sources so both see a warm page cache.
+ */
+@OptIn(UnstableApi::class)
+@RunWith(AndroidJUnit4::class)
+class DataSourceBenchmark {
+
+    data class Result(
+        val source: String,
+        val uri: Uri,
+        val bytes: Long,
+        val wallMs: Long,
+        val cpuMs: Long
+    ) {
+        val megabytesPerSecond: Double
+            get() = if (wallMs == 0L) 0.0 else bytes / 1024.0 / 1024.0 / (wallMs / 1000.0)
+
+        override fun toString(): String =
+            "$source: ${bytes / 1024} KB in $wallMs ms (cpu $cpuMs ms), " +
+                String.format(Locale.US, "%.1f MB/s", megabytesPerSecond)
+    }
+
+    private val context: Context = InstrumentationRegistry.getInstrumentation().targetContext
+
+    @Test
+    fun mappedFileAgainstContentResolver() {
+        val media = listOfNotNull(
+            largest(
+                MediaStore.Audio.Media.EXTERNAL_CONTENT_URI,
+                "${MediaStore.MediaColumns.MIME_TYPE} = ?",
+                arrayOf("audio/flac")
+            ),
+            largest(MediaStore.Video.Media.EXTERNAL_CONTENT_URI, null, null)
+        )
+        assumeTrue("No readable media on this device", media.isNotEmpty())
+
+        for (uri in media) {
+            val (resolver, mapped) = run(uri, ROUNDS)
+            // Both sources must hand the extractor the same bytes
+            assertEquals(resolver.bytes, mapped.bytes)
+        }
+    }
+
+    private fun run(uri: Uri, rounds: Int): List<Result> {
+        val sources = listOf<Pair<String, () -> DataSource>>(
+            "content resolver" to { DefaultDataSource.Factory(context).createDataSource() },
+            "mapped file" to { MappedFileDataSource.Factory(context).createDataSource() }
+        )
+
+        val best = HashMap<String, Result>()
+        repeat(rounds) {
+            for ((name, create) in sources) {
+                val result = readFully(name, create(), uri)
+                val previous = best[name]
+                if (previous == null || result.wallMs < previous.wallMs) {
+                    best[name] = result
+                }
+            }
+        }
+
+        return sources.map { (name, _) -> best.getValue(name) }.onEach {
+            Log.i(DATA_SOURCE_BENCHMARK_LOGGER, "$uri $it")
+        }
+    }
+
+    private fun readFully(name: String, source: DataSource, uri: Uri): Result {
+        val buffer = ByteArray(READ_BUFFER_BYTES)
+        var bytes = 0L
+        val wallStart = SystemClock.elapsedRealtime()
+        val cpuStart = Debug.threadCpuTimeNanos()
+        try {
+            source.open(DataSpec(uri))
+            while (true) {
+                val read = source.read(buffer, 0, buffer.size)
+                if (read == C.RESULT_END_OF_INPUT) break
+                bytes += read
+            }
+        } finally {
+            source.close()
+        }
+        return Result(
+            source = name,
+            uri = uri,
+            bytes = bytes,
+            wallMs = SystemClock.elapsedRealtime() - wallStart,
+            cpuMs = (Debug.threadCpuTimeNanos() - cpuStart) / 1_000_000
+        )
+    }
+
+    private fun largest(table: Uri, selection: String?, selectionArgs: Array<String>?): Uri? =
+        try {
+            context.contentResolver.query(
+                table,
+                arrayOf(MediaStore.MediaColumns._ID),
+                selection,
+                selectionArgs,
+                "${MediaStore.MediaColumns.SIZE} DESC"
+            )?.use { cursor ->
+                if (cursor.moveToFirst()) ContentUris.withAppendedId(table, cursor.getLong(0)) else null
+            }
+        } catch (e: SecurityException) {
+            null
+        }
+
+    companion object {
+        private const val ROUNDS = 3
+
+        // Roughly what ExoPlayer's extractors ask for per read
+        private const val READ_BUFFER_BYTES = 16 * 1024
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.videoplayer
 
 import android.app.Application
+import com.example.videoplayer.Presentation.AudioPlayer.playerScreen.VideoPlayerPool
+import org.koin.android.ext.android.get
 import org.koin.android.ext.koin.androidContext
 import org.koin.core.context.GlobalContext.startKoin
 
@@ -13,4 +15,10 @@ class AppClass : Application() {
             modules(AppModule.getModule()) // IMPORTANT
         }
     }
+
+    override fun onTrimMemory(level: Int) {
+        super.onTrimMemory(level)
+        // Idle pooled players hold decoders, give them back first
+        get<VideoPlayerPool>().trim()
+    }
 }
@@ -1,17 +1,24 @@
 package com.example.videoplayer
 
 import android.content.Context
-import android.media.session.MediaSession
-import androidx.media3.common.Player
-import androidx.media3.exoplayer.ExoPlayer
+import com.example.videoplayer.Data.Local.LibraryFilterStore
+import com.example.videoplayer.Data.Local.TrackIndexStore
 import com.example.videoplayer.Data.Repository.MusicRepository
+import com.example.videoplayer.Data.Repository.VideoRepository
+import com.example.videoplayer.Data.Scanner.MediaIndexer
+import com.example.videoplayer.Data.Thumbnails.ThumbnailSpriteCache
+import com.example.videoplayer.Data.Thumbnails.TrickPlayThumbnails
 import com.example.videoplayer.Domain.Models.AudioScanner
+import com.example.videoplayer.Domain.Models.VideoScanner
 import com.example.videoplayer.Domain.Repository.IMusicRepository
+import com.example.videoplayer.Domain.Repository.IVideoRepository
 import com.example.videoplayer.Domain.UseCase.MusicPlayerUseCase
+import com.example.videoplayer.Presentation.AudioPlayer.playerScreen.VideoPlayerPool
 import com.example.videoplayer.Presentation.AudioPlayer.playerScreen.VideoPlayerViewModel
 
 import com.example.videoplayer.Presentation.AudioPlayer.videosScreen.ViewViewModel
 import com.example.videoplayer.Presentation.VideoPlayer.MusicPlayerViewModel
+import com.example.videoplayer.Service.MusicPlayerConnection
 import org.koin.android.ext.koin.androidContext
 import org.koin.core.module.Module
 import org.koin.core.module.dsl.viewModel
@@ -21,24 +28,39 @@ object AppModule {
     fun getModule(): Module = module {
 
 
-        factory<Player> {
-            ExoPlayer.Builder(androidContext())
-                .build()
-        }
-
-        viewModel { VideoPlayerViewModel() }
+        viewModel { VideoPlayerViewModel(thumbnails = get()) }
 
-        viewModel { ViewViewModel(androidContext()) }
+        viewModel { ViewViewModel(videoRepository = get()) }
 
 
         // ============= DATA LAYER =============
 
+        // Library filters, persisted across runs and pushed down into every MediaStore query
+        single { LibraryFilterStore(context = get()) }
+
         // Audio Scanner
-        single { AudioScanner(context = get()) }
+        single { AudioScanner(context = get(), filter = get<LibraryFilterStore>().filter) }
+
+        // On-disk track index for cold start
+        single { TrackIndexStore(context = get()) }
 
         // Repository Implementation
         single<IMusicRepository> {
-            MusicRepository(audioScanner = get())
+            MusicRepository(
+                audioScanner = get(),
+                trackIndex = get(),
+                mediaIndexer = get()
+            )
+        }
+
+        // Video Scanner and cached repository, shared by every video screen
+        single { VideoScanner(context = get(), filter = get<LibraryFilterStore>().filter) }
+
+        // Full scans of both tables run here, in parallel
+        single { MediaIndexer(audioScanner = get(), videoScanner = get()) }
+
+        single<IVideoRepository> {
+            VideoRepository(videoScanner = get(), mediaIndexer = get())
         }
 
         // Content Resolver
@@ -55,10 +77,15 @@ object AppModule {
 
         // ============= PLAYER LAYER =============
 
-        // ExoPlayer - Single instance throughout the app
-        single<ExoPlayer> {
-            ExoPlayer.Builder(get<Context>()).build()
-        }
+        // Music plays in MusicService, the UI reaches it through one shared controller
+        single { MusicPlayerConnection(context = androidContext()) }
+
+        // Video players, pooled so screens reuse warm decoders
+        single { VideoPlayerPool(context = androidContext()) }
+
+        // Seek preview sprites, extracted in the background and kept on disk
+        single { ThumbnailSpriteCache(context = androidContext()) }
+        single { TrickPlayThumbnails(context = androidContext(), cache = get()) }
 
         // ============= PRESENTATION LAYER =============
 
@@ -66,14 +93,11 @@ object AppModule {
         viewModel {
             MusicPlayerViewModel(
                 musicPlayerUseCase = get(),
-                exoPlayer = get(),
+                playerConnection = get(),
             )
         }
 
 
-        factory<MediaSession?> { null }
-
-
     }
 
 }
@@ -0,0 +1,125 @@
+package com.example.videoplayer.Data
+
+import android.annotation.SuppressLint
+import android.bluetooth.BluetoothAdapter
+import android.bluetooth.BluetoothDevice
+import android.content.BroadcastReceiver
+import android.content.Context
+import android.content.Intent
+import android.content.IntentFilter
+import androidx.core.content.ContextCompat
+import androidx.core.content.IntentCompat
+import kotlinx.coroutines.channels.ProducerScope
+import kotlinx.coroutines.channels.awaitClose
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.callbackFlow
+import kotlinx.coroutines.flow.filter
+import kotlinx.coroutines.flow.firstOrNull
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.flow.mapNotNull
+import kotlinx.coroutines.withTimeoutOrNull
+
+// A device's bond state moved from previousState to state
+data class BondStateChange(
+    val device: BluetoothDevice,
+    val state: Int,
+    val previousState: Int
+)
+
+/**
+ * Adapter and bond broadcasts as flows, and suspend functions that resume the
+ * moment the state they wait for is reached, instead of sleeping or polling.
+ *
+ * Waits register their receiver before they act or read the current state,
+ * so a broadcast sent in between is never missed.
+ */
+@SuppressLint("MissingPermission")
+class BluetoothEvents(private val context: Context) {
+
+    fun discoveryFinished(): Flow<Unit> =
+        broadcasts(BluetoothAdapter.ACTION_DISCOVERY_FINISHED).map { }
+
+    fun bondStateChanges(): Flow<BondStateChange> =
+        broadcasts(BluetoothDevice.ACTION_BOND_STATE_CHANGED).mapNotNull { it.toBondStateChange() }
+
+    /**
+     * Stop discovery and return once the adapter reports it finished. Returns
+     * at once when nothing is discovering; false if [timeoutMs] passed first.
+     */
+    suspend fun cancelDiscovery(adapter: BluetoothAdapter, timeoutMs: Long = DISCOVERY_STOP_TIMEOUT): Boolean {
+        if (!adapter.isDiscovering) return true
+        return withTimeoutOrNull(timeoutMs) {
+            broadcasts(BluetoothAdapter.ACTION_DISCOVERY_FINISHED) {
+                adapter.cancelDiscovery()
+                // Finished before we were listening
+                if (!adapter.isDiscovering) trySend(Intent(BluetoothAdapter.ACTION_DISCOVERY_FINISHED))
+            }.firstOrNull()
+            true
+        } ?: false
+    }
+
+    /**
+     * Start pairing with [device] and return the bond state it settles on:
+     * BOND_BONDED, or BOND_NONE when pairing failed or was rejected. Null when
+     * pairing could not be started; the current state if [timeoutMs] passed.
+     */
+    suspend fun createBond(device: BluetoothDevice, timeoutMs: Long = BOND_TIMEOUT): Int? {
+        var started = true
+        var sawBonding = false
+        val settled = withTimeoutOrNull(timeoutMs) {
+            broadcasts(BluetoothDevice.ACTION_BOND_STATE_CHANGED) {
+                started = device.createBond()
+                if (!started) close()
+            }
+                .mapNotNull { it.toBondStateChange() }
+                .filter { it.device.address == device.address }
+                .firstOrNull { change ->
+                    if (change.state == BluetoothDevice.BOND_BONDING) sawBonding = true
+                    // Back to NONE from BONDING is a failed or rejected pairing, even when the
+                    // BONDING broadcast itself was not seen; NONE from BONDED is an older unbond
+                    val pairingFailed = change.state == BluetoothDevice.BOND_NONE &&
+                        (sawBonding || change.previousState == BluetoothDevice.BOND_BONDING)
+                    change.state == BluetoothDevice.BOND_BONDED || pairingFailed
+                }
+        }
+        if (!started) return null
+        return settled?.state ?: device.bondState
+    }
+
+    private fun broadcasts(
+        action: String,
+        onRegistered: ProducerScope<Intent>.() -> Unit = {}
+    ): Flow<Intent> = callbackFlow {
+        val receiver = object : BroadcastReceiver() {
+            override fun onReceive(context: Context, intent: Intent) {
+                trySend(intent)
+            }
+        }
+        // Sent by the Bluetooth process, not the system uid: a not-exported receiver never sees
+        // them, and below API 33 ContextCompat would demand a permission that process lacks.
+        // Both actions are protected broadcasts, so exporting lets no other app spoof them.
+        ContextCompat.registerReceiver(
+            context,
+            receiver,
+            IntentFilter(action),
+            ContextCompat.RECEIVER_EXPORTED
+        )
+        onRegistered()
+        awaitClose { context.unregisterReceiver(receiver) }
+    }
+
+    private fun Intent.toBondStateChange(): BondStateChange? {
+        val device = IntentCompat.getParcelableExtra(this, BluetoothDevice.EXTRA_DEVICE, BluetoothDevice::class.java)
+            ?: return null
+        return BondStateChange(
+            device = device,
+            state = getIntExtra(BluetoothDevice.EXTRA_BOND_STATE, BluetoothDevice.ERROR),
+            previousState = getIntExtra(BluetoothDevice.EXTRA_PREVIOUS_BOND_STATE, BluetoothDevice.ERROR)
+        )
+    }
+
+    companion object {
+        private const val DISCOVERY_STOP_TIMEOUT = 1000L
+        private const val BOND_TIMEOUT = 30000L
+    }
+}
@@ -0,0 +1,244 @@
+package com.example.videoplayer.Data
+
+import android.os.SystemClock
+import android.util.Log
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.channels.ClosedSendChannelException
+import kotlinx.coroutines.currentCoroutineContext
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.ensureActive
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.launch
+import java.io.IOException
+import java.io.OutputStream
+import java.nio.ByteBuffer
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+
+private const val SEND_PIPELINE_LOGGER = "SEND_PIPELINE"
+
+// Snapshot of a send pipeline, updated on every send and write and on a timer
+data class SendStats(
+    val queuedMessages: Int = 0,
+    val queuedBytes: Long = 0L,
+    val bytesSent: Long = 0L,
+    val writes: Long = 0L,
+    val bytesPerSecond: Long = 0L
+)
+
+/**
+ * Everything sent to one connection goes through a bounded queue into a
+ * single writer coroutine. The writer packs queued messages into writes of up
+ * to [packetSize] bytes, the socket's RFCOMM packet size, so a burst of small
+ * messages becomes a few full packets instead of one syscall and packet each.
+ * Large messages are split at the same size.
+ *
+ * [send] suspends while [capacity] messages are waiting, which is the
+ * backpressure on producers, and returns once the message is queued;
+ * [sendAndAwait] returns once it was written. A write error or [cancel] fails
+ * every send that is waiting and every later one with an IOException.
+ */
+class BluetoothSendPipeline(
+    private val output: OutputStream,
+    scope: CoroutineScope,
+    private val packetSize: Int,
+    capacity: Int = DEFAULT_CAPACITY
+) {
+
+    // Messages the queue drops on cancel never reach the writer, fail whoever waits on them
+    private val queue = Channel<Outgoing>(capacity) { dropped ->
+        dropped.written?.completeExceptionally(failure ?: IOException("Connection closed"))
+    }
+
+    // Channel has no size, keep our own counts for the stats
+    private val queuedMessages = AtomicInteger()
+    private val queuedBytes = AtomicLong()
+    private val bytesSent = AtomicLong()
+    private val writes = AtomicLong()
+
+    @Volatile
+    private var bytesPerSecond = 0L
+
+    // Why the pipeline stopped taking messages, reported to senders instead of the channel's cancellation
+    @Volatile
+    private var failure: IOException? = null
+
+    private val _stats = MutableStateFlow(SendStats())
+    val stats: StateFlow<SendStats> = _stats.asStateFlow()
+
+    // Ticker first, the writer cancels it when it stops
+    private val ticker: Job = scope.launch { tickStats() }
+    private val writer: Job = scope.launch { writeLoop() }
+
+    /**
+     * Queue [data] for sending. The buffer is read later by the writer, not
+     * copied; don't modify it after handing it over.
+     */
+    suspend fun send(data: ByteBuffer) {
+        if (!data.hasRemaining()) return
+        enqueue(Outgoing(data, written = null))
+    }
+
+    // Copied, the caller may reuse its array as soon as this returns
+    suspend fun send(data: ByteArray) = send(ByteBuffer.wrap(data.copyOf()))
+
+    /**
+     * Queue [data] and return once its last byte was written to the stream.
+     * Throws the IOException that stopped the pipeline if it never was.
+     */
+    suspend fun sendAndAwait(data: ByteBuffer) {
+        if (!data.hasRemaining()) return
+        val written = CompletableDeferred<Unit>()
+        enqueue(Outgoing(data, written))
+        written.await()
+    }
+
+    private suspend fun enqueue(message: Outgoing) {
+        val size = message.buffer.remaining().toLong()
+        queuedMessages.incrementAndGet()
+        queuedBytes.addAndGet(size)
+        publishStats()
+        try {
+            queue.send(message)
+        } catch (e: CancellationException) {
+            unqueue(size)
+            // Our own cancellation stays a cancellation; the queue being cancelled is a failed send
+            currentCoroutineContext().ensureActive()
+            throw failure ?: IOException("Connection closed")
+        } catch (e: ClosedSendChannelException) {
+            unqueue(size)
+            throw failure ?: IOException("Pipeline closed", e)
+        } catch (e: Throwable) {
+            unqueue(size)
+            throw e
+        }
+    }
+
+    // Stop taking messages; whatever is already queued is still written
+    fun close() {
+        queue.close()
+    }
+
+    // Drop queued messages and stop the writer, e.g. when the socket is going away
+    fun cancel() {
+        fail(IOException("Connection closed"))
+        writer.cancel()
+        ticker.cancel()
+    }
+
+    // Unlike close(), cancelling the queue also resumes senders suspended on a full buffer
+    private fun fail(error: IOException) {
+        if (failure == null) failure = error
+        queue.cancel(CancellationException(error.message, error))
+        publishStats()
+    }
+
+    private suspend fun writeLoop() {
+        val batch = ByteArray(packetSize)
+        var current: Outgoing? = null
+        // Waiters of the messages whose last byte is in the batch
+        val finished = ArrayList<CompletableDeferred<Unit>>()
+
+        try {
+            while (true) {
+                // Wait for work, then take whatever else is already queued without waiting
+                current = current ?: dequeue(queue.receiveCatching().getOrNull() ?: break)
+                var filled = 0
+                while (filled < packetSize) {
+                    val message = current ?: queue.tryReceive().getOrNull()?.let(::dequeue) ?: break
+                    val buffer = message.buffer
+                    val count = minOf(buffer.remaining(), packetSize - filled)
+                    buffer.get(batch, filled, count)
+                    filled += count
+                    if (buffer.hasRemaining()) {
+                        current = message
+                    } else {
+                        current = null
+                        message.written?.let { finished.add(it) }
+                    }
+                }
+
+                output.write(batch, 0, filled)
+                queuedBytes.addAndGet(-filled.toLong())
+                bytesSent.addAndGet(filled.toLong())
+                writes.incrementAndGet()
+                publishStats()
+                finished.forEach { it.complete(Unit) }
+                finished.clear()
+            }
+        } catch (e: IOException) {
+            Log.e(SEND_PIPELINE_LOGGER, "Write failed, closing pipeline", e)
+            fail(e)
+        } finally {
+            // Taken off the queue but never fully written
+            val error = failure ?: IOException("Connection closed")
+            finished.forEach { it.completeExceptionally(error) }
+            current?.written?.completeExceptionally(error)
+            ticker.cancel()
+            bytesPerSecond = 0L
+            publishStats()
+        }
+    }
+
+    // Rate over the last interval, so it falls to zero once the link goes idle
+    private suspend fun tickStats() {
+        var lastBytes = bytesSent.get()
+        var lastTick = SystemClock.elapsedRealtime()
+        var lastLog = lastTick
+        while (true) {
+            delay(STATS_INTERVAL_MS)
+            val now = SystemClock.elapsedRealtime()
+            val sent = bytesSent.get()
+            if (now > lastTick) {
+                bytesPerSecond = (sent - lastBytes) * 1000 / (now - lastTick)
+            }
+            lastBytes = sent
+            lastTick = now
+            publishStats()
+
+            if (now - lastLog >= LOG_INTERVAL_MS) {
+                lastLog = now
+                Log.d(SEND_PIPELINE_LOGGER, "${bytesPerSecond / 1024} KB/s, ${queuedMessages.get()} queued, ${writes.get()} writes")
+            }
+        }
+    }
+
+    private fun publishStats() {
+        // Nothing is queued once the pipeline failed, whatever a racing sender counted
+        val failed = failure != null
+        _stats.value = SendStats(
+            queuedMessages = if (failed) 0 else queuedMessages.get(),
+            queuedBytes = if (failed) 0L else queuedBytes.get(),
+            bytesSent = bytesSent.get(),
+            writes = writes.get(),
+            bytesPerSecond = bytesPerSecond
+        )
+    }
+
+    // Queued bytes are only counted off as they are written, a message may span several writes
+    private fun dequeue(message: Outgoing): Outgoing {
+        queuedMessages.decrementAndGet()
+        return message
+    }
+
+    private fun unqueue(size: Long) {
+        queuedMessages.decrementAndGet()
+        queuedBytes.addAndGet(-size)
+        publishStats()
+    }
+
+    // A queued message; written, when someone waits on it, completes once its last byte is out
+    private class Outgoing(val buffer: ByteBuffer, val written: CompletableDeferred<Unit>?)
+
+    companion object {
+        private const val DEFAULT_CAPACITY = 64
+        private const val STATS_INTERVAL_MS = 500L
+        private const val LOG_INTERVAL_MS = 5000L
+    }
+}
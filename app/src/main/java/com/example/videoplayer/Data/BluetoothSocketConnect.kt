@@ -0,0 +1,135 @@
+package com.example.videoplayer.Data
+
+import android.bluetooth.BluetoothSocket
+import android.os.SystemClock
+import android.util.Log
+import kotlinx.coroutines.suspendCancellableCoroutine
+import java.io.IOException
+import java.util.Collections
+import java.util.concurrent.Executors
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicReference
+import kotlin.coroutines.resume
+
+private const val SOCKET_CONNECT_LOGGER = "SOCKET_CONNECT"
+
+// How a connect ended; elapsedMs is measured around connect() itself
+sealed class ConnectOutcome {
+    abstract val elapsedMs: Long
+
+    class Connected(override val elapsedMs: Long) : ConnectOutcome()
+    class TimedOut(override val elapsedMs: Long) : ConnectOutcome()
+    class Failed(val error: IOException, override val elapsedMs: Long) : ConnectOutcome()
+    class Aborted(override val elapsedMs: Long) : ConnectOutcome()
+}
+
+/**
+ * Runs BluetoothSocket.connect(), which blocks and cannot be interrupted, on
+ * its own threads so no coroutine dispatcher thread waits on the radio. The
+ * only way to stop it early is to close the socket, so:
+ *
+ * - a watchdog closes the socket when the deadline passes, whatever the caller is doing
+ * - cancelling the calling coroutine closes it right away
+ * - [abortAll] closes every socket still connecting
+ */
+class BluetoothSocketConnect {
+
+    private val connectThreads = Executors.newCachedThreadPool { runnable ->
+        Thread(runnable, "bt-connect").apply { isDaemon = true }
+    }
+    private val watchdog: ScheduledExecutorService = Executors.newSingleThreadScheduledExecutor { runnable ->
+        Thread(runnable, "bt-connect-watchdog").apply { isDaemon = true }
+    }
+
+    private val inFlight = Collections.synchronizedSet(HashSet<InFlight>())
+
+    suspend fun connect(socket: BluetoothSocket, timeoutMs: Long): ConnectOutcome =
+        suspendCancellableCoroutine { continuation ->
+            val attempt = InFlight(socket)
+            inFlight.add(attempt)
+            continuation.invokeOnCancellation { attempt.stop(StopReason.CANCELLED) }
+
+            val startedAt = SystemClock.elapsedRealtime()
+            try {
+                val deadline = watchdog.schedule(
+                    { attempt.stop(StopReason.TIMED_OUT) },
+                    timeoutMs,
+                    TimeUnit.MILLISECONDS
+                )
+                connectThreads.execute {
+                    val outcome = attempt.run(startedAt)
+                    deadline.cancel(false)
+                    inFlight.remove(attempt)
+                    // A socket that connected just as the caller went away must not leak
+                    continuation.resume(outcome) { attempt.socket.closeQuietly() }
+                }
+            } catch (e: RejectedExecutionException) {
+                // Shut down, see shutdown()
+                inFlight.remove(attempt)
+                attempt.socket.closeQuietly()
+                continuation.resume(ConnectOutcome.Aborted(0L))
+            }
+        }
+
+    // Close every socket still connecting; their callers get Aborted
+    fun abortAll() {
+        val attempts = synchronized(inFlight) { inFlight.toList() }
+        if (attempts.isNotEmpty()) {
+            Log.d(SOCKET_CONNECT_LOGGER, "Aborting ${attempts.size} connects in flight")
+        }
+        attempts.forEach { it.stop(StopReason.ABORTED) }
+    }
+
+    fun shutdown() {
+        abortAll()
+        watchdog.shutdownNow()
+        connectThreads.shutdown()
+    }
+
+    private enum class StopReason { TIMED_OUT, CANCELLED, ABORTED }
+
+    private class InFlight(val socket: BluetoothSocket) {
+        // Null while connecting; whoever sets it first decides how the attempt ended
+        private val ended = AtomicReference<Any?>(null)
+
+        fun stop(reason: StopReason) {
+            if (ended.compareAndSet(null, reason)) {
+                socket.closeQuietly()
+            }
+        }
+
+        fun run(startedAt: Long): ConnectOutcome {
+            val error = try {
+                socket.connect()
+                null
+            } catch (e: IOException) {
+                e
+            }
+            val elapsed = SystemClock.elapsedRealtime() - startedAt
+
+            if (error == null && ended.compareAndSet(null, DONE)) {
+                return ConnectOutcome.Connected(elapsed)
+            }
+            ended.compareAndSet(null, DONE)
+            return when (ended.get()) {
+                StopReason.TIMED_OUT -> ConnectOutcome.TimedOut(elapsed)
+                StopReason.ABORTED, StopReason.CANCELLED -> ConnectOutcome.Aborted(elapsed)
+                else -> ConnectOutcome.Failed(error ?: IOException("Socket closed"), elapsed)
+            }
+        }
+
+        companion object {
+            private val DONE = Any()
+        }
+    }
+}
+
+internal fun BluetoothSocket.closeQuietly() {
+    try {
+        close()
+    } catch (e: IOException) {
+        Log.w(SOCKET_CONNECT_LOGGER, "Error closing socket: ${e.message}")
+    }
+}
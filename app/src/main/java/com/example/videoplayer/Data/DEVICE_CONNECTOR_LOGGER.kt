@@ -4,7 +4,9 @@ private const val DEVICE_CONNECTOR_LOGGER = "DEVICE_CONNECTOR"
 
 @SuppressLint("MissingPermission")
 class BluetoothDeviceConnector(
-    private val context: Context
+    private val context: Context,
+    private val profiles: ConnectionProfileStore = ConnectionProfileStore(context),
+    private val events: BluetoothEvents = BluetoothEvents(context)
 ) {
 
     private val bluetoothManager by lazy { context.getSystemService<BluetoothManager>() }
@@ -22,15 +24,32 @@ class BluetoothDeviceConnector(
     // Current connection
     private var bluetoothSocket: BluetoothSocket? = null
     private var connectionJob: Job? = null
+
+    // Publishing a connect winner and disconnect() tearing down never interleave
+    private val connectionLock = Any()
     
     // Coroutine scope
     private val connectionScope = CoroutineScope(Dispatchers.IO + SupervisorJob())
 
+    // Blocking connects run here, off the dispatcher, with a watchdog per deadline
+    private val socketConnect = BluetoothSocketConnect()
+
+    // Writer for the current connection, null while disconnected
+    private val sendPipeline = MutableStateFlow<BluetoothSendPipeline?>(null)
+
     // Public flows
     val connectionState: Flow<DeviceConnectionState> = _connectionState.asStateFlow()
     val connectedDevice: Flow<BluetoothDeviceModel?> = _connectedDevice.asStateFlow()
     val connectionError: Flow<String?> = _connectionError.asStateFlow()
 
+    // Adapter broadcasts, each collector registers its own receiver
+    val discoveryFinished: Flow<Unit> get() = events.discoveryFinished()
+    val bondStateChanges: Flow<BondStateChange> get() = events.bondStateChanges()
+
+    // Throughput and queue depth of the current connection's sends
+    @OptIn(ExperimentalCoroutinesApi::class)
+    val sendStats: Flow<SendStats> = sendPipeline.flatMapLatest { it?.stats ?: flowOf(SendStats()) }
+
     // Common UUIDs for consumer devices
     companion object {
         // Audio profiles
@@ -45,11 +64,21 @@ class BluetoothDeviceConnector(
         private val HID_UUID = UUID.fromString("00001124-0000-1000-8000-00805F9B34FB") // Human Interface Device
         
         // Connection settings
-        private const val CONNECTION_TIMEOUT = 15000L // 15 seconds
-        private const val MAX_RETRY_ATTEMPTS = 3
-        private const val RETRY_DELAY = 2000L // 2 seconds
+        private const val MAX_PARALLEL_ATTEMPTS = 3       // sockets in flight at once
+        private const val CONNECT_BUDGET_MS = 8000L       // hard cap for one connectToDevice
+        private const val MIN_ATTEMPT_TIMEOUT = 2000L
+        private const val MAX_ATTEMPT_TIMEOUT = 6000L
+        private const val INITIAL_LATENCY_ESTIMATE = 1500L
+        private const val LATENCY_SMOOTHING = 0.25        // weight of the newest sample
+        private const val REFLECTION_CHANNEL = 1
+        private const val MIN_HEAD_START = 500L           // learned candidate runs alone at least this long
+        private const val DEFAULT_PACKET_SIZE = 990       // default RFCOMM MTU when the socket can't tell
     }
 
+    // Smoothed latency of successful connects, drives the per-attempt timeout
+    @Volatile
+    private var connectLatencyEstimate = INITIAL_LATENCY_ESTIMATE
+
     /**
      * Connect to a Bluetooth device (speakers, headphones, phones, etc.)
      */
@@ -73,12 +102,22 @@ class BluetoothDeviceConnector(
             disconnect()
         }
 
+        _connectionState.value = DeviceConnectionState.CONNECTING
+        _connectionError.value = null
+        Log.d(DEVICE_CONNECTOR_LOGGER, "Starting connection to ${device.name} (${device.address})")
+
+        // Run as connectionJob so disconnect() and release() can stop it
+        val connect = connectionScope.async { raceConnect(device) }
+        connectionJob = connect
         return try {
-            _connectionState.value = DeviceConnectionState.CONNECTING
-            _connectionError.value = null
-            Log.d(DEVICE_CONNECTOR_LOGGER, "Starting connection to ${device.name} (${device.address})")
-            
-            connectWithRetry(device)
+            connect.await()
+        } catch (e: CancellationException) {
+            connect.cancel()
+            // The caller's own cancellation keeps propagating
+            currentCoroutineContext().ensureActive()
+            Log.d(DEVICE_CONNECTOR_LOGGER, "Connection to ${device.name} aborted")
+            _connectionState.value = DeviceConnectionState.DISCONNECTED
+            Result.failure(Exception("Connection aborted"))
         } catch (e: Exception) {
             Log.e(DEVICE_CONNECTOR_LOGGER, "Connection failed", e)
             _connectionState.value = DeviceConnectionState.DISCONNECTED
@@ -87,66 +126,187 @@ class BluetoothDeviceConnector(
         }
     }
 
-    private suspend fun connectWithRetry(device: BluetoothDeviceModel): Result<Unit> = withContext(Dispatchers.IO) {
+    /**
+     * Keeps up to [MAX_PARALLEL_ATTEMPTS] candidate sockets connecting at once and
+     * starts the next candidate as soon as one fails. The first socket to connect
+     * wins; the rest are cancelled and closed. Everything stops at [CONNECT_BUDGET_MS],
+     * so an unreachable device fails within a few seconds instead of minutes.
+     */
+    private suspend fun raceConnect(device: BluetoothDeviceModel): Result<Unit> = withContext(Dispatchers.IO) {
         val bluetoothDevice = bluetoothAdapter?.getRemoteDevice(device.address)
             ?: return@withContext Result.failure(Exception("Could not get remote device"))
 
-        // Cancel discovery to improve connection performance
-        bluetoothAdapter?.cancelDiscovery()
-        delay(500) // Wait for discovery to stop
-
-        // Get UUIDs to try for connection
-        val uuidsToTry = getConnectionUUIDs(bluetoothDevice, device.deviceType)
-        Log.d(DEVICE_CONNECTOR_LOGGER, "Trying ${uuidsToTry.size} UUIDs for connection")
+        // Discovery slows connects down; wait for it to actually stop, free when it isn't running
+        bluetoothAdapter?.let { adapter ->
+            if (!events.cancelDiscovery(adapter)) {
+                Log.w(DEVICE_CONNECTOR_LOGGER, "Discovery did not report finishing, connecting anyway")
+            }
+        }
 
+        // What reached this device last time goes first
+        val learned = profiles.get(device.address)
+        val candidates = (listOfNotNull(learned?.candidate) +
+            socketCandidates(getConnectionUUIDs(bluetoothDevice, device.deviceType))).distinct()
+        val attemptTimeout = attemptTimeout()
+        Log.d(
+            DEVICE_CONNECTOR_LOGGER,
+            "Racing ${candidates.size} candidates, ${attemptTimeout}ms per attempt" +
+                (learned?.let { ", learned ${it.candidate} (${it.latencyMs}ms)" } ?: "")
+        )
+
+        val startedAt = SystemClock.elapsedRealtime()
+        val outcomes = Channel<AttemptOutcome>(Channel.UNLIMITED)
+        val pending = ArrayDeque(candidates)
+        val running = HashMap<SocketCandidate, Job>()
         var lastException: Exception? = null
 
-        repeat(MAX_RETRY_ATTEMPTS) { attempt ->
-            Log.d(DEVICE_CONNECTOR_LOGGER, "Connection attempt ${attempt + 1}/$MAX_RETRY_ATTEMPTS")
-
-            for ((index, uuid) in uuidsToTry.withIndex()) {
-                try {
-                    Log.d(DEVICE_CONNECTOR_LOGGER, "Trying UUID ${index + 1}/${uuidsToTry.size}: $uuid")
-                    
-                    val socket = createSocketWithFallback(bluetoothDevice, uuid)
-                    
-                    // Try to connect with timeout
-                    val connected = withTimeoutOrNull(CONNECTION_TIMEOUT) {
-                        socket.connect()
-                        socket.isConnected
-                    }
-
-                    if (connected == true) {
-                        // Connection successful
-                        bluetoothSocket = socket
-                        _connectedDevice.value = device
-                        _connectionState.value = DeviceConnectionState.CONNECTED
-                        Log.i(DEVICE_CONNECTOR_LOGGER, "Successfully connected to ${device.name}")
-                        return@withContext Result.success(Unit)
-                    } else {
-                        socket.close()
-                        Log.w(DEVICE_CONNECTOR_LOGGER, "Connection timeout for UUID: $uuid")
-                    }
-                    
-                } catch (e: Exception) {
-                    Log.w(DEVICE_CONNECTOR_LOGGER, "Connection failed with UUID $uuid: ${e.message}")
-                    lastException = e
+        fun startNext() {
+            val candidate = pending.removeFirstOrNull() ?: return
+            running[candidate] = launch {
+                val outcome = attempt(bluetoothDevice, candidate, attemptTimeout)
+                // The race is already decided, don't leak a late winner
+                if (outcomes.trySend(outcome).isFailure) {
+                    outcome.socket?.closeQuietly()
                 }
             }
+        }
 
-            // Wait before retry (except for last attempt)
-            if (attempt < MAX_RETRY_ATTEMPTS - 1) {
-                delay(RETRY_DELAY)
+        val winner = withTimeoutOrNull(CONNECT_BUDGET_MS) {
+            startNext()
+            if (learned != null) {
+                // The known path alone first; guesses racing it would only contend for the radio
+                val headStart = (learned.latencyMs * 2).coerceIn(MIN_HEAD_START, attemptTimeout)
+                val first = withTimeoutOrNull(headStart) { outcomes.receive() }
+                if (first != null) {
+                    running.remove(first.candidate)
+                    if (first.socket != null || first.aborted) return@withTimeoutOrNull first
+                    lastException = first.error
+                }
+            }
+            while (running.size < MAX_PARALLEL_ATTEMPTS && pending.isNotEmpty()) {
+                startNext()
             }
+            while (running.isNotEmpty()) {
+                val outcome = outcomes.receive()
+                running.remove(outcome.candidate)
+                // Aborted means disconnect() or release(), don't start anything new
+                if (outcome.socket != null || outcome.aborted) return@withTimeoutOrNull outcome
+                lastException = outcome.error
+                startNext()
+            }
+            null
         }
 
-        // All attempts failed
-        val errorMessage = "Failed to connect after $MAX_RETRY_ATTEMPTS attempts"
+        // Losers: stop them, and close any socket that connected after the winner
+        outcomes.close()
+        running.values.forEach { it.cancel() }
+        while (true) {
+            val late = outcomes.tryReceive().getOrNull() ?: break
+            late.socket?.closeQuietly()
+        }
+
+        if (winner?.socket != null) {
+            // disconnect() may have cancelled us after the race was decided, then the socket is nobody's
+            val published = synchronized(connectionLock) {
+                if (isActive) {
+                    bluetoothSocket = winner.socket
+                    sendPipeline.value = BluetoothSendPipeline(
+                        output = winner.socket.outputStream,
+                        scope = connectionScope,
+                        packetSize = packetSize(winner.socket)
+                    )
+                    _connectedDevice.value = device
+                    _connectionState.value = DeviceConnectionState.CONNECTED
+                }
+                isActive
+            }
+            if (!published) {
+                winner.socket.closeQuietly()
+                ensureActive()
+            }
+            recordLatency(winner.elapsedMs)
+            profiles.recordSuccess(device.address, winner.candidate, winner.elapsedMs)
+            Log.i(
+                DEVICE_CONNECTOR_LOGGER,
+                "Connected to ${device.name} via ${winner.candidate} in ${winner.elapsedMs}ms"
+            )
+            return@withContext Result.success(Unit)
+        }
+
+        if (winner?.aborted == true) {
+            return@withContext Result.failure(Exception("Connection aborted"))
+        }
+
+        // All attempts failed or the budget ran out
+        if (learned != null) {
+            profiles.recordFailure(device.address)
+        }
+        val elapsed = SystemClock.elapsedRealtime() - startedAt
+        val errorMessage = "Failed to connect after ${elapsed}ms"
         _connectionState.value = DeviceConnectionState.DISCONNECTED
         _connectionError.value = errorMessage
         Result.failure(lastException ?: Exception(errorMessage))
     }
 
+    // One socket, created and connected; never throws, failures come back in the outcome
+    private suspend fun attempt(
+        device: BluetoothDevice,
+        candidate: SocketCandidate,
+        timeoutMs: Long
+    ): AttemptOutcome {
+        val startedAt = SystemClock.elapsedRealtime()
+        val socket = try {
+            createSocket(device, candidate)
+        } catch (e: Exception) {
+            return AttemptOutcome(candidate, null, e, SystemClock.elapsedRealtime() - startedAt)
+        }
+
+        // Timed out and aborted sockets are already closed by socketConnect
+        return when (val outcome = socketConnect.connect(socket, timeoutMs)) {
+            is ConnectOutcome.Connected ->
+                AttemptOutcome(candidate, socket, null, outcome.elapsedMs)
+            is ConnectOutcome.TimedOut -> {
+                Log.w(DEVICE_CONNECTOR_LOGGER, "Connection timeout for $candidate after ${outcome.elapsedMs}ms")
+                AttemptOutcome(candidate, null, Exception("Timed out after ${outcome.elapsedMs}ms"), outcome.elapsedMs)
+            }
+            is ConnectOutcome.Failed -> {
+                socket.closeQuietly()
+                Log.w(DEVICE_CONNECTOR_LOGGER, "Connection failed with $candidate after ${outcome.elapsedMs}ms: ${outcome.error.message}")
+                AttemptOutcome(candidate, null, outcome.error, outcome.elapsedMs)
+            }
+            is ConnectOutcome.Aborted ->
+                AttemptOutcome(candidate, null, Exception("Connection aborted"), outcome.elapsedMs, aborted = true)
+        }
+    }
+
+    // A few times the usual connect latency, so slow-but-alive devices still make it
+    private fun attemptTimeout(): Long =
+        (connectLatencyEstimate * 3).coerceIn(MIN_ATTEMPT_TIMEOUT, MAX_ATTEMPT_TIMEOUT)
+
+    private fun recordLatency(elapsedMs: Long) {
+        connectLatencyEstimate =
+            (connectLatencyEstimate * (1 - LATENCY_SMOOTHING) + elapsedMs * LATENCY_SMOOTHING).toLong()
+    }
+
+    /**
+     * Secure and insecure socket per UUID, with the reflection channel in the first
+     * wave, so the first [MAX_PARALLEL_ATTEMPTS] cover all three creation paths.
+     */
+    private fun socketCandidates(uuids: List<UUID>): List<SocketCandidate> {
+        val candidates = mutableListOf<SocketCandidate>()
+        uuids.forEachIndexed { index, uuid ->
+            candidates.add(SocketCandidate(uuid, SocketPath.SECURE))
+            candidates.add(SocketCandidate(uuid, SocketPath.INSECURE))
+            if (index == 0) {
+                candidates.add(SocketCandidate(null, SocketPath.REFLECTION))
+            }
+        }
+        if (uuids.isEmpty()) {
+            candidates.add(SocketCandidate(null, SocketPath.REFLECTION))
+        }
+        return candidates
+    }
+
     private fun getConnectionUUIDs(device: BluetoothDevice, deviceType: BluetoothDeviceType): List<UUID> {
         val uuids = mutableListOf<UUID>()
 
@@ -190,26 +350,18 @@ class BluetoothDeviceConnector(
         return uuids.distinct()
     }
 
-    private fun createSocketWithFallback(device: BluetoothDevice, uuid: UUID): BluetoothSocket {
-        return try {
-            Log.d(DEVICE_CONNECTOR_LOGGER, "Creating secure socket")
-            device.createRfcommSocketToServiceRecord(uuid)
-        } catch (e: Exception) {
-            Log.w(DEVICE_CONNECTOR_LOGGER, "Secure socket failed, trying insecure: ${e.message}")
-            try {
-                device.createInsecureRfcommSocketToServiceRecord(uuid)
-            } catch (e2: Exception) {
-                Log.w(DEVICE_CONNECTOR_LOGGER, "Insecure socket failed, trying reflection: ${e2.message}")
-                createSocketUsingReflection(device)
-            }
+    private fun createSocket(device: BluetoothDevice, candidate: SocketCandidate): BluetoothSocket =
+        when (candidate.path) {
+            SocketPath.SECURE -> device.createRfcommSocketToServiceRecord(candidate.uuid)
+            SocketPath.INSECURE -> device.createInsecureRfcommSocketToServiceRecord(candidate.uuid)
+            SocketPath.REFLECTION -> createSocketUsingReflection(device)
         }
-    }
 
     private fun createSocketUsingReflection(device: BluetoothDevice): BluetoothSocket {
         return try {
             Log.d(DEVICE_CONNECTOR_LOGGER, "Using reflection to create socket")
             val method = device.javaClass.getMethod("createRfcommSocket", Int::class.javaPrimitiveType)
-            method.invoke(device, 1) as BluetoothSocket
+            method.invoke(device, REFLECTION_CHANNEL) as BluetoothSocket
         } catch (e: Exception) {
             Log.e(DEVICE_CONNECTOR_LOGGER, "Reflection method failed", e)
             throw Exception("Failed to create socket: ${e.message}")
@@ -223,13 +375,19 @@ class BluetoothDeviceConnector(
         return try {
             Log.d(DEVICE_CONNECTOR_LOGGER, "Disconnecting from device")
             
-            connectionJob?.cancel()
-            bluetoothSocket?.close()
-            
-            bluetoothSocket = null
-            _connectedDevice.value = null
-            _connectionState.value = DeviceConnectionState.DISCONNECTED
-            _connectionError.value = null
+            synchronized(connectionLock) {
+                // Close sockets still connecting right away, connect() would not notice the cancel
+                connectionJob?.cancel()
+                socketConnect.abortAll()
+                sendPipeline.value?.cancel()
+                sendPipeline.value = null
+                bluetoothSocket?.close()
+
+                bluetoothSocket = null
+                _connectedDevice.value = null
+                _connectionState.value = DeviceConnectionState.DISCONNECTED
+                _connectionError.value = null
+            }
             
             Result.success(Unit)
         } catch (e: Exception) {
@@ -254,26 +412,48 @@ class BluetoothDeviceConnector(
     }
 
     /**
-     * Send simple data to connected device (for devices that support it)
+     * Queue bytes for the connected device. Small sends are packed into full
+     * RFCOMM packets by the send pipeline; this suspends while its queue is full.
+     * The buffer is not copied, don't modify it afterwards.
      */
-    suspend fun sendData(data: String): Result<Boolean> = withContext(Dispatchers.IO) {
-        val socket = bluetoothSocket
-        if (socket == null || !socket.isConnected) {
-            return@withContext Result.failure(Exception("Device not connected"))
+    suspend fun send(data: ByteBuffer): Result<Unit> {
+        val pipeline = sendPipeline.value
+            ?: return Result.failure(Exception("Device not connected"))
+
+        return try {
+            pipeline.send(data)
+            Result.success(Unit)
+        } catch (e: IOException) {
+            Log.e(DEVICE_CONNECTOR_LOGGER, "Failed to send ${data.remaining()} bytes", e)
+            Result.failure(e)
         }
+    }
 
-        return@withContext try {
-            val outputStream = socket.outputStream
-            outputStream.write(data.toByteArray())
-            outputStream.flush()
-            Log.d(DEVICE_CONNECTOR_LOGGER, "Data sent successfully: $data")
+    // Copied, the caller may reuse its array as soon as this returns
+    suspend fun send(data: ByteArray): Result<Unit> = send(ByteBuffer.wrap(data.copyOf()))
+
+    /**
+     * Send simple data to connected device (for devices that support it).
+     * Returns once the bytes were written to the socket, and fails if the write did.
+     */
+    suspend fun sendData(data: String): Result<Boolean> {
+        val pipeline = sendPipeline.value
+            ?: return Result.failure(Exception("Device not connected"))
+
+        val bytes = data.encodeToByteArray()
+        return try {
+            pipeline.sendAndAwait(ByteBuffer.wrap(bytes))
             Result.success(true)
-        } catch (e: Exception) {
-            Log.e(DEVICE_CONNECTOR_LOGGER, "Failed to send data", e)
+        } catch (e: IOException) {
+            Log.e(DEVICE_CONNECTOR_LOGGER, "Failed to send ${bytes.size} bytes", e)
             Result.failure(e)
         }
     }
 
+    // Largest RFCOMM packet the link takes, writes are sized to it
+    private fun packetSize(socket: BluetoothSocket): Int =
+        socket.maxTransmitPacketSize.takeIf { it > 0 } ?: DEFAULT_PACKET_SIZE
+
     /**
      * Pair with device if not already paired
      */
@@ -292,17 +472,11 @@ class BluetoothDeviceConnector(
             }
 
             Log.d(DEVICE_CONNECTOR_LOGGER, "Starting pairing process")
-            val pairResult = bluetoothDevice.createBond()
+            // Resumes on the bond state broadcast, not on a polling tick
+            val bondState = events.createBond(bluetoothDevice)
             
-            if (pairResult) {
-                // Wait for pairing to complete
-                var attempts = 0
-                while (bluetoothDevice.bondState == BluetoothDevice.BOND_BONDING && attempts < 30) {
-                    delay(1000)
-                    attempts++
-                }
-                
-                val success = bluetoothDevice.bondState == BluetoothDevice.BOND_BONDED
+            if (bondState != null) {
+                val success = bondState == BluetoothDevice.BOND_BONDED
                 Log.d(DEVICE_CONNECTOR_LOGGER, "Pairing result: $success")
                 Result.success(success)
             } else {
@@ -320,10 +494,35 @@ class BluetoothDeviceConnector(
     fun release() {
         Log.d(DEVICE_CONNECTOR_LOGGER, "Releasing resources")
         disconnect()
+        socketConnect.shutdown()
         connectionScope.cancel()
     }
 }
 
+// How a candidate socket is created
+enum class SocketPath {
+    SECURE,
+    INSECURE,
+    REFLECTION
+}
+
+// One way to reach a device; uuid is null for the reflection channel
+data class SocketCandidate(
+    val uuid: UUID?,
+    val path: SocketPath
+) {
+    override fun toString(): String = if (uuid == null) "$path" else "$path $uuid"
+}
+
+// Result of one racing attempt, socket is set only when it connected
+private class AttemptOutcome(
+    val candidate: SocketCandidate,
+    val socket: BluetoothSocket?,
+    val error: Exception?,
+    val elapsedMs: Long,
+    val aborted: Boolean = false
+)
+
 // Connection states for consumer devices
 enum class DeviceConnectionState {
     DISCONNECTED,
@@ -348,6 +547,7 @@ class BluetoothDeviceRepository(private val context: Context) {
     val connectionState = deviceConnector.connectionState
     val connectedDevice = deviceConnector.connectedDevice
     val connectionError = deviceConnector.connectionError
+    val bondStateChanges = deviceConnector.bondStateChanges
     
     suspend fun connectToDevice(device: BluetoothDeviceModel): Result<Unit> {
         return deviceConnector.connectToDevice(device)
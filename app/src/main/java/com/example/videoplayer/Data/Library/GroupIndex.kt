@@ -0,0 +1,42 @@
+package com.example.videoplayer.Data.Library// data/library/GroupIndex.kt
+
+/**
+ * Rows grouped by a dictionary-encoded column (artist, album, folder).
+ *
+ * Stored as one offsets array and one row array, so every group is a slice
+ * of [rows] and a lookup never scans the whole library.
+ */
+class GroupIndex(
+    private val values: Array<String>,
+    keys: IntArray
+) {
+    private val offsets = IntArray(values.size + 1)
+    private val rows = IntArray(keys.size)
+    private val keyByValue = HashMap<String, Int>(values.size * 2)
+
+    init {
+        values.forEachIndexed { key, value -> keyByValue[value] = key }
+
+        // Counting sort of row numbers by key, keeping library order inside a group
+        keys.forEach { key -> offsets[key + 1]++ }
+        for (key in 1..values.size) {
+            offsets[key] += offsets[key - 1]
+        }
+        val cursor = offsets.copyOf(values.size)
+        keys.forEachIndexed { row, key ->
+            rows[cursor[key]++] = row
+        }
+    }
+
+    val groups: List<String> get() = values.asList()
+
+    fun rowsOf(value: String): IntArray {
+        val key = keyByValue[value] ?: return IntArray(0)
+        return rows.copyOfRange(offsets[key], offsets[key + 1])
+    }
+
+    fun countOf(value: String): Int {
+        val key = keyByValue[value] ?: return 0
+        return offsets[key + 1] - offsets[key]
+    }
+}
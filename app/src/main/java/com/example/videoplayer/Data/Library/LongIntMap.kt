@@ -0,0 +1,63 @@
+package com.example.videoplayer.Data.Library// data/library/LongIntMap.kt
+
+/**
+ * Open-addressing map from a long key to a non-negative int, backed by two
+ * primitive arrays. No boxing on put or get, which matters when the key is a
+ * MediaStore id looked up on every player transition.
+ */
+class LongIntMap(expectedSize: Int) {
+
+    private val mask: Int
+    private val keys: LongArray
+    private val values: IntArray
+
+    var size: Int = 0
+        private set
+
+    init {
+        // Keep the load factor at or below one half
+        var capacity = 2
+        while (capacity < expectedSize * 2) {
+            capacity = capacity shl 1
+        }
+        mask = capacity - 1
+        keys = LongArray(capacity)
+        values = IntArray(capacity) { EMPTY }
+    }
+
+    fun put(key: Long, value: Int) {
+        require(value >= 0) { "Only non-negative values can be stored" }
+        var slot = slotOf(key)
+        while (values[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                values[slot] = value
+                return
+            }
+            slot = (slot + 1) and mask
+        }
+        check(size < mask) { "LongIntMap is full" }
+        keys[slot] = key
+        values[slot] = value
+        size++
+    }
+
+    fun get(key: Long, defaultValue: Int = EMPTY): Int {
+        var slot = slotOf(key)
+        while (values[slot] != EMPTY) {
+            if (keys[slot] == key) return values[slot]
+            slot = (slot + 1) and mask
+        }
+        return defaultValue
+    }
+
+    operator fun contains(key: Long): Boolean = get(key) != EMPTY
+
+    private fun slotOf(key: Long): Int {
+        val hash = key * -0x61c8864680b583ebL // golden ratio multiplier
+        return (hash xor (hash ushr 32)).toInt() and mask
+    }
+
+    companion object {
+        const val EMPTY = -1
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.videoplayer.Data.Library// data/library/PagedList.kt
+
+/**
+ * Read-only list over pages as they arrive from a scan. [append] returns a
+ * new snapshot that shares the pages of this one, so growing a list page by
+ * page never copies rows; a row lookup is a binary search over page starts.
+ *
+ * Only the newest snapshot can be appended to. Older snapshots stay valid
+ * and keep seeing the rows they had.
+ */
+class PagedList<T> private constructor(
+    private val pages: ArrayList<List<T>>,
+    private val starts: IntArray,
+    private val pageCount: Int,
+    override val size: Int
+) : AbstractList<T>() {
+
+    constructor() : this(ArrayList(), IntArray(INITIAL_PAGES), 0, 0)
+
+    override fun get(index: Int): T {
+        if (index < 0 || index >= size) throw IndexOutOfBoundsException("Index $index, size $size")
+        // Last page starting at or before index
+        var low = 0
+        var high = pageCount - 1
+        while (low < high) {
+            val mid = (low + high + 1) ushr 1
+            if (starts[mid] <= index) low = mid else high = mid - 1
+        }
+        return pages[low][index - starts[low]]
+    }
+
+    fun append(page: List<T>): PagedList<T> {
+        if (page.isEmpty()) return this
+        check(pages.size == pageCount) { "Only the newest snapshot can be appended to" }
+        val starts = if (pageCount < starts.size) starts else starts.copyOf(starts.size * 2)
+        starts[pageCount] = size
+        pages.add(page)
+        return PagedList(pages, starts, pageCount + 1, size + page.size)
+    }
+
+    // Snapshots compare by identity, a StateFlow holding one must not walk every row to decide whether to emit
+    override fun equals(other: Any?): Boolean = this === other
+
+    override fun hashCode(): Int = System.identityHashCode(this)
+
+    companion object {
+        private const val INITIAL_PAGES = 64
+    }
+}
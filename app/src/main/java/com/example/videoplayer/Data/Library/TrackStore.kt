@@ -0,0 +1,265 @@
+package com.example.videoplayer.Data.Library// data/library/TrackStore.kt
+import com.example.videoplayer.Domain.Models.AudioTrack
+import com.example.videoplayer.Domain.Models.Track
+import java.io.DataInput
+import java.io.DataOutput
+
+/**
+ * Column-oriented copy of the music library.
+ *
+ * Every field lives in a primitive or string array indexed by row. Artist,
+ * album and folder are dictionary encoded, so a library with 50k tracks but
+ * a few hundred artists keeps a few hundred artist strings. [get] hands out a
+ * small [Track] view; URIs are built from the id only when read.
+ */
+class TrackStore private constructor(
+    private val ids: LongArray,
+    private val durations: LongArray,
+    private val titles: Array<String>,
+    private val artistIds: IntArray,
+    private val albumIds: IntArray,
+    private val folderIds: IntArray,
+    private val fileNames: Array<String>,
+    private val artists: Array<String>,
+    private val albums: Array<String>,
+    private val folders: Array<String>
+) : AbstractList<Track>() {
+
+    override val size: Int get() = ids.size
+
+    override fun get(index: Int): Track = Track(
+        id = ids[index],
+        title = titles[index],
+        artist = artists[artistIds[index]],
+        album = albums[albumIds[index]],
+        duration = durations[index]
+    )
+
+    fun idAt(index: Int): Long = ids[index]
+
+    fun durationAt(index: Int): Long = durations[index]
+
+    fun titleAt(index: Int): String = titles[index]
+
+    fun artistAt(index: Int): String = artists[artistIds[index]]
+
+    fun albumAt(index: Int): String = albums[albumIds[index]]
+
+    fun folderAt(index: Int): String = folders[folderIds[index]]
+
+    fun pathAt(index: Int): String {
+        val folder = folders[folderIds[index]]
+        return if (folder.isEmpty()) fileNames[index] else "$folder/${fileNames[index]}"
+    }
+
+    // Built on first use and immutable afterwards, like the store itself
+    private val idIndex by lazy {
+        LongIntMap(ids.size).also { map ->
+            ids.forEachIndexed { index, id -> map.put(id, index) }
+        }
+    }
+    private val artistIndex by lazy { GroupIndex(artists, artistIds) }
+    private val albumIndex by lazy { GroupIndex(albums, albumIds) }
+    private val folderIndex by lazy { GroupIndex(folders, folderIds) }
+
+    fun indexOfId(id: Long): Int = idIndex.get(id)
+
+    // A store is a snapshot and is replaced, never mutated; compare by identity so a
+    // StateFlow holding one does not walk every row to decide whether to emit
+    override fun equals(other: Any?): Boolean = this === other
+
+    override fun hashCode(): Int = System.identityHashCode(this)
+
+    val artistNames: List<String> get() = artistIndex.groups
+
+    val albumNames: List<String> get() = albumIndex.groups
+
+    val folderNames: List<String> get() = folderIndex.groups
+
+    fun tracksByArtist(artist: String): List<Track> = RowView(artistIndex.rowsOf(artist))
+
+    fun tracksByAlbum(album: String): List<Track> = RowView(albumIndex.rowsOf(album))
+
+    fun tracksInFolder(folder: String): List<Track> = RowView(folderIndex.rowsOf(folder))
+
+    // Subset of rows, still backed by the store's columns
+    private inner class RowView(private val rows: IntArray) : AbstractList<Track>() {
+        override val size: Int get() = rows.size
+        override fun get(index: Int): Track = this@TrackStore[rows[index]]
+    }
+
+    // Dictionaries first, then one fixed-shape record per row
+    fun writeTo(output: DataOutput) {
+        writeStrings(output, artists)
+        writeStrings(output, albums)
+        writeStrings(output, folders)
+        output.writeInt(size)
+        for (index in 0 until size) {
+            output.writeLong(ids[index])
+            output.writeUTF(titles[index])
+            output.writeInt(artistIds[index])
+            output.writeInt(albumIds[index])
+            output.writeLong(durations[index])
+            output.writeInt(folderIds[index])
+            output.writeUTF(fileNames[index])
+        }
+    }
+
+    // Grows the columns while rows are appended, interning repeated strings
+    class Builder(initialCapacity: Int = 256) {
+        private var count = 0
+        private var ids = LongArray(initialCapacity)
+        private var durations = LongArray(initialCapacity)
+        private var titles = arrayOfNulls<String>(initialCapacity)
+        private var artistIds = IntArray(initialCapacity)
+        private var albumIds = IntArray(initialCapacity)
+        private var folderIds = IntArray(initialCapacity)
+        private var fileNames = arrayOfNulls<String>(initialCapacity)
+
+        private val artists = StringDictionary()
+        private val albums = StringDictionary()
+        private val folders = StringDictionary()
+
+        val size: Int get() = count
+
+        fun add(track: AudioTrack): Track {
+            val folder = track.data.substringBeforeLast('/', "")
+            val fileName = track.data.substringAfterLast('/')
+            return add(track.id, track.title, track.artist, track.album, track.duration, folder, fileName)
+        }
+
+        // Copy a row from another store without splitting its path again
+        fun addFrom(store: TrackStore, index: Int): Track = add(
+            store.ids[index],
+            store.titles[index],
+            store.artistAt(index),
+            store.albumAt(index),
+            store.durations[index],
+            store.folderAt(index),
+            store.fileNames[index]
+        )
+
+        fun add(
+            id: Long,
+            title: String,
+            artist: String,
+            album: String,
+            duration: Long,
+            folder: String,
+            fileName: String
+        ): Track {
+            ensureCapacity(count + 1)
+            ids[count] = id
+            durations[count] = duration
+            titles[count] = title
+            artistIds[count] = artists.intern(artist)
+            albumIds[count] = albums.intern(album)
+            folderIds[count] = folders.intern(folder)
+            fileNames[count] = fileName
+            count++
+
+            return Track(
+                id = id,
+                title = title,
+                artist = artists.valueAt(artistIds[count - 1]),
+                album = albums.valueAt(albumIds[count - 1]),
+                duration = duration
+            )
+        }
+
+        @Suppress("UNCHECKED_CAST")
+        fun build(): TrackStore = TrackStore(
+            ids = ids.copyOf(count),
+            durations = durations.copyOf(count),
+            titles = titles.copyOf(count) as Array<String>,
+            artistIds = artistIds.copyOf(count),
+            albumIds = albumIds.copyOf(count),
+            folderIds = folderIds.copyOf(count),
+            fileNames = fileNames.copyOf(count) as Array<String>,
+            artists = artists.toArray(),
+            albums = albums.toArray(),
+            folders = folders.toArray()
+        )
+
+        private fun ensureCapacity(required: Int) {
+            if (required <= ids.size) return
+            val newCapacity = maxOf(required, ids.size * 2)
+            ids = ids.copyOf(newCapacity)
+            durations = durations.copyOf(newCapacity)
+            titles = titles.copyOf(newCapacity)
+            artistIds = artistIds.copyOf(newCapacity)
+            albumIds = albumIds.copyOf(newCapacity)
+            folderIds = folderIds.copyOf(newCapacity)
+            fileNames = fileNames.copyOf(newCapacity)
+        }
+    }
+
+    private class StringDictionary {
+        private val indexByValue = HashMap<String, Int>()
+        private val values = ArrayList<String>()
+
+        fun intern(value: String): Int = indexByValue.getOrPut(value) {
+            values.add(value)
+            values.size - 1
+        }
+
+        fun valueAt(index: Int): String = values[index]
+
+        fun toArray(): Array<String> = values.toTypedArray()
+    }
+
+    companion object {
+        val EMPTY: TrackStore = Builder(0).build()
+
+        fun readFrom(input: DataInput): TrackStore {
+            val artists = readStrings(input)
+            val albums = readStrings(input)
+            val folders = readStrings(input)
+
+            val count = input.readInt()
+            val ids = LongArray(count)
+            val durations = LongArray(count)
+            val titles = arrayOfNulls<String>(count)
+            val artistIds = IntArray(count)
+            val albumIds = IntArray(count)
+            val folderIds = IntArray(count)
+            val fileNames = arrayOfNulls<String>(count)
+
+            for (index in 0 until count) {
+                ids[index] = input.readLong()
+                titles[index] = input.readUTF()
+                artistIds[index] = input.readInt()
+                albumIds[index] = input.readInt()
+                durations[index] = input.readLong()
+                folderIds[index] = input.readInt()
+                fileNames[index] = input.readUTF()
+            }
+
+            @Suppress("UNCHECKED_CAST")
+            return TrackStore(
+                ids = ids,
+                durations = durations,
+                titles = titles as Array<String>,
+                artistIds = artistIds,
+                albumIds = albumIds,
+                folderIds = folderIds,
+                fileNames = fileNames as Array<String>,
+                artists = artists,
+                albums = albums,
+                folders = folders
+            )
+        }
+
+        private fun writeStrings(output: DataOutput, values: Array<String>) {
+            output.writeInt(values.size)
+            values.forEach { output.writeUTF(it) }
+        }
+
+        private fun readStrings(input: DataInput): Array<String> =
+            Array(input.readInt()) { input.readUTF() }
+    }
+}
+
+// The store's id map once the library is complete; only pages still arriving from a scan are searched
+fun List<Track>.indexOfTrackId(id: Long): Int =
+    if (this is TrackStore) indexOfId(id) else indexOfFirst { it.id == id }
@@ -0,0 +1,104 @@
+package com.example.videoplayer.Data.Local// data/local/ConnectionProfileStore.kt
+import android.content.Context
+import android.util.Log
+import com.example.videoplayer.Data.SocketCandidate
+import com.example.videoplayer.Data.SocketPath
+import java.util.UUID
+
+private const val CONNECTION_PROFILE_LOGGER = "CONNECTION_PROFILE"
+
+// The socket that last reached a device, and how long it took
+data class ConnectionProfile(
+    val candidate: SocketCandidate,
+    val latencyMs: Long,
+    val lastSuccessAt: Long,
+    val failures: Int = 0
+)
+
+/**
+ * Per device address, which UUID and socket path connected last time, kept in
+ * shared preferences so the next connect can try it first. A connect won by
+ * another path replaces the profile. It is dropped after [MAX_FAILURES]
+ * connects in a row where no path connected at all, or once it has not
+ * worked for [MAX_AGE_MS].
+ */
+class ConnectionProfileStore(context: Context) {
+
+    private val prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE)
+
+    fun get(address: String): ConnectionProfile? = synchronized(this) {
+        val profile = prefs.getString(address, null)?.let(::decode) ?: return null
+        if (System.currentTimeMillis() - profile.lastSuccessAt > MAX_AGE_MS) {
+            prefs.edit().remove(address).apply()
+            return null
+        }
+        profile
+    }
+
+    fun recordSuccess(address: String, candidate: SocketCandidate, latencyMs: Long) {
+        synchronized(this) {
+            val previous = prefs.getString(address, null)?.let(::decode)
+            // Smooth the latency while the same path keeps winning
+            val latency = if (previous?.candidate == candidate) {
+                (previous.latencyMs + latencyMs) / 2
+            } else {
+                latencyMs
+            }
+            write(address, ConnectionProfile(candidate, latency, System.currentTimeMillis()))
+        }
+    }
+
+    // A connect where every path failed, the learned one included
+    fun recordFailure(address: String) {
+        synchronized(this) {
+            val previous = prefs.getString(address, null)?.let(::decode) ?: return
+            val failures = previous.failures + 1
+            if (failures >= MAX_FAILURES) {
+                Log.d(CONNECTION_PROFILE_LOGGER, "Dropping profile for $address after $failures failed connects")
+                prefs.edit().remove(address).apply()
+            } else {
+                write(address, previous.copy(failures = failures))
+            }
+        }
+    }
+
+    fun clear() {
+        prefs.edit().clear().apply()
+    }
+
+    private fun write(address: String, profile: ConnectionProfile) {
+        prefs.edit().putString(address, encode(profile)).apply()
+    }
+
+    // path|uuid|latency|lastSuccessAt|failures, uuid empty for the reflection channel
+    private fun encode(profile: ConnectionProfile): String = listOf(
+        profile.candidate.path.name,
+        profile.candidate.uuid?.toString().orEmpty(),
+        profile.latencyMs,
+        profile.lastSuccessAt,
+        profile.failures
+    ).joinToString(SEPARATOR)
+
+    private fun decode(value: String): ConnectionProfile? = try {
+        val parts = value.split(SEPARATOR)
+        ConnectionProfile(
+            candidate = SocketCandidate(
+                uuid = parts[1].takeIf { it.isNotEmpty() }?.let(UUID::fromString),
+                path = SocketPath.valueOf(parts[0])
+            ),
+            latencyMs = parts[2].toLong(),
+            lastSuccessAt = parts[3].toLong(),
+            failures = parts[4].toInt()
+        )
+    } catch (e: Exception) {
+        Log.w(CONNECTION_PROFILE_LOGGER, "Unreadable profile, ignoring: $value")
+        null
+    }
+
+    companion object {
+        private const val PREFS_NAME = "connection_profiles"
+        private const val SEPARATOR = "|"
+        private const val MAX_FAILURES = 3
+        private const val MAX_AGE_MS = 90L * 24 * 60 * 60 * 1000
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.videoplayer.Data.Local// data/local/LibraryFilterStore.kt
+import android.content.Context
+import com.example.videoplayer.Domain.Models.LibraryFilter
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asStateFlow
+
+/**
+ * User library filters, kept in shared preferences so folder exclusions
+ * survive restarts. Scanners read [filter] on every query.
+ */
+class LibraryFilterStore(context: Context) {
+
+    private val prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE)
+
+    private val _filter = MutableStateFlow(read())
+    val filter: StateFlow<LibraryFilter> = _filter.asStateFlow()
+
+    fun excludeFolder(path: String) = update {
+        it.copy(excludedFolders = it.excludedFolders + normalize(path))
+    }
+
+    fun includeFolder(path: String) = update {
+        it.copy(excludedFolders = it.excludedFolders - normalize(path))
+    }
+
+    fun setMinDuration(durationMs: Long) = update {
+        it.copy(minDurationMs = durationMs.coerceAtLeast(0L))
+    }
+
+    fun update(transform: (LibraryFilter) -> LibraryFilter) {
+        synchronized(this) {
+            val next = transform(_filter.value)
+            if (next == _filter.value) return
+            write(next)
+            _filter.value = next
+        }
+    }
+
+    private fun read(): LibraryFilter = LibraryFilter(
+        minDurationMs = prefs.getLong(KEY_MIN_DURATION, 0L),
+        // The returned set must not be modified, take a copy
+        excludedFolders = prefs.getStringSet(KEY_EXCLUDED_FOLDERS, null)?.toSet().orEmpty(),
+        includeRingtones = prefs.getBoolean(KEY_INCLUDE_RINGTONES, false),
+        includeRecordings = prefs.getBoolean(KEY_INCLUDE_RECORDINGS, false),
+        volumes = prefs.getStringSet(KEY_VOLUMES, null)?.toSet().orEmpty()
+    )
+
+    private fun write(filter: LibraryFilter) {
+        prefs.edit()
+            .putLong(KEY_MIN_DURATION, filter.minDurationMs)
+            .putStringSet(KEY_EXCLUDED_FOLDERS, filter.excludedFolders)
+            .putBoolean(KEY_INCLUDE_RINGTONES, filter.includeRingtones)
+            .putBoolean(KEY_INCLUDE_RECORDINGS, filter.includeRecordings)
+            .putStringSet(KEY_VOLUMES, filter.volumes)
+            .apply()
+    }
+
+    private fun normalize(path: String): String = path.trim().trimEnd('/')
+
+    companion object {
+        private const val PREFS_NAME = "library_filter"
+        private const val KEY_MIN_DURATION = "min_duration_ms"
+        private const val KEY_EXCLUDED_FOLDERS = "excluded_folders"
+        private const val KEY_INCLUDE_RINGTONES = "include_ringtones"
+        private const val KEY_INCLUDE_RECORDINGS = "include_recordings"
+        private const val KEY_VOLUMES = "volumes"
+    }
+}
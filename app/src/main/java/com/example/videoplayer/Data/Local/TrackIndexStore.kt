@@ -0,0 +1,101 @@
+package com.example.videoplayer.Data.Local// data/local/TrackIndexStore.kt
+import android.content.Context
+import android.util.AtomicFile
+import android.util.Log
+import com.example.videoplayer.Data.Library.TrackStore
+import com.example.videoplayer.Domain.Models.SyncWatermark
+import java.io.BufferedInputStream
+import java.io.BufferedOutputStream
+import java.io.DataInput
+import java.io.DataInputStream
+import java.io.DataOutput
+import java.io.DataOutputStream
+import java.io.File
+
+private const val TRACK_INDEX_LOGGER = "TRACK_INDEX"
+
+// Snapshot of the library as it was at the last sync
+data class TrackIndexSnapshot(
+    val tracks: TrackStore,
+    val watermark: SyncWatermark
+)
+
+/**
+ * Compact binary copy of the scanned library, so a cold start can render
+ * the playlist without waiting for a MediaStore query.
+ *
+ * Layout: magic, version, watermark, then the [TrackStore] columns with
+ * their artist/album/folder dictionaries. URIs are rebuilt from the id.
+ */
+class TrackIndexStore(context: Context) {
+
+    private val indexFile = AtomicFile(File(context.filesDir, FILE_NAME))
+
+    fun read(): TrackIndexSnapshot? {
+        return try {
+            DataInputStream(BufferedInputStream(indexFile.openRead())).use { input ->
+                readSnapshot(input)
+            }
+        } catch (e: java.io.FileNotFoundException) {
+            null
+        } catch (e: Exception) {
+            Log.e(TRACK_INDEX_LOGGER, "Failed to read index, discarding", e)
+            indexFile.delete()
+            null
+        }
+    }
+
+    fun write(tracks: TrackStore, watermark: SyncWatermark) {
+        val stream = try {
+            indexFile.startWrite()
+        } catch (e: Exception) {
+            Log.e(TRACK_INDEX_LOGGER, "Failed to open index for writing", e)
+            return
+        }
+
+        try {
+            val output = DataOutputStream(BufferedOutputStream(stream))
+            writeSnapshot(output, tracks, watermark)
+            output.flush()
+            indexFile.finishWrite(stream)
+        } catch (e: Exception) {
+            Log.e(TRACK_INDEX_LOGGER, "Failed to write index", e)
+            indexFile.failWrite(stream)
+        }
+    }
+
+    fun clear() {
+        indexFile.delete()
+    }
+
+    companion object {
+        private const val FILE_NAME = "track_index.bin"
+        private const val MAGIC = 0x54524B49 // "TRKI"
+        internal const val VERSION = 2
+
+        // The file format without the file, null when it was written by another version
+        internal fun readSnapshot(input: DataInput): TrackIndexSnapshot? {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                Log.w(TRACK_INDEX_LOGGER, "Index format changed, ignoring")
+                return null
+            }
+
+            val watermark = SyncWatermark(
+                generation = input.readLong(),
+                dateSeconds = input.readLong(),
+                version = input.readUTF()
+            )
+
+            return TrackIndexSnapshot(TrackStore.readFrom(input), watermark)
+        }
+
+        internal fun writeSnapshot(output: DataOutput, tracks: TrackStore, watermark: SyncWatermark) {
+            output.writeInt(MAGIC)
+            output.writeInt(VERSION)
+            output.writeLong(watermark.generation)
+            output.writeLong(watermark.dateSeconds)
+            output.writeUTF(watermark.version)
+            tracks.writeTo(output)
+        }
+    }
+}
@@ -1,36 +1,333 @@
 package com.example.videoplayer.Data.Repository// data/repository/MusicRepository.kt
+import com.example.videoplayer.Data.Library.TrackStore
+import com.example.videoplayer.Data.Local.TrackIndexStore
+import com.example.videoplayer.Data.Scanner.MediaIndexer
+import com.example.videoplayer.Data.Search.TrackSearchIndex
 import com.example.videoplayer.Domain.Models.AudioScanner
+import com.example.videoplayer.Domain.Models.LibraryChange
+import com.example.videoplayer.Domain.Models.SyncWatermark
 import com.example.videoplayer.Domain.Models.Track
 import com.example.videoplayer.Domain.Repository.IMusicRepository
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.FlowPreview
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.SupervisorJob
 import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.MutableSharedFlow
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.SharingStarted
+import kotlinx.coroutines.flow.debounce
+import kotlinx.coroutines.flow.filter
+import kotlinx.coroutines.flow.first
 import kotlinx.coroutines.flow.flow
+import kotlinx.coroutines.flow.flowOn
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.flow.mapNotNull
+import kotlinx.coroutines.flow.merge
+import kotlinx.coroutines.flow.shareIn
+import kotlinx.coroutines.flow.transformWhile
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
+import kotlinx.coroutines.withContext
 
 
 
 class MusicRepository (
-    private val audioScanner: AudioScanner
+    private val audioScanner: AudioScanner,
+    private val trackIndex: TrackIndexStore,
+    private val mediaIndexer: MediaIndexer
 ) : IMusicRepository {
-    
-    private var cachedTracks: List<Track>? = null
-    
+
+    // Columnar store, exposed to callers as a List<Track> of lightweight views.
+    // Replaced as a whole, never mutated, so readers only need the volatile read.
+    @Volatile
+    private var cachedTracks: TrackStore? = null
+    private var syncWatermark = SyncWatermark()
+
+    // Built on the first search, then kept current from library changes
+    private val searchIndex = TrackSearchIndex()
+
+    // Set when the cache was served from the on-disk index and still needs a MediaStore pass
+    private val needsReconcile = MutableStateFlow(false)
+
+    // Loads outlive the collector that started them, so late joiners still get every page
+    private val repositoryScope = CoroutineScope(Dispatchers.IO + SupervisorJob())
+
+    // Guards inFlightLoad and every replacement of cachedTracks and syncWatermark
+    private val cacheLock = Any()
+    private var inFlightLoad: LibraryLoad? = null
+
+    // Orders on-disk index writes against invalidate() clearing it
+    private val indexLock = Any()
+
+    // Serializes delta syncs against each other and against the first search index build
+    private val syncMutex = Mutex()
+
+    // One sync per MediaStore change, fanned out to every collector
+    @OptIn(FlowPreview::class)
+    private val libraryChanges: Flow<LibraryChange> =
+        merge(
+            needsReconcile.filter { it }.map { },
+            audioScanner.observeChanges()
+        )
+            .debounce(CHANGE_DEBOUNCE_MS)
+            .mapNotNull { syncChanges() }
+            .shareIn(repositoryScope, SharingStarted.WhileSubscribed())
+
     override suspend fun getAllTracks(): Flow<List<Track>> = flow {
-        if (cachedTracks == null) {
-            cachedTracks = audioScanner.scanAudioFiles().map { audioTrack ->
-                Track(
-                    id = audioTrack.id,
-                    title = audioTrack.title,
-                    artist = audioTrack.artist,
-                    album = audioTrack.album,
-                    duration = audioTrack.duration,
-                    uri = audioTrack.uri,
-                    albumArtUri = audioTrack.albumArtUri
-                )
-            }
-        }
-        emit(cachedTracks ?: emptyList())
-    }
-    
+        joinLoad(DEFAULT_PAGE_SIZE)?.let { load ->
+            load.pages().collect { }
+        }
+        emit(cachedTracks ?: TrackStore.EMPTY)
+    }.flowOn(Dispatchers.IO)
+
+    override fun getTrackPages(pageSize: Int): Flow<List<Track>> = flow {
+        val load = joinLoad(pageSize)
+        if (load == null) {
+            // Already resident, hand out the store itself rather than copies of it
+            emit(cachedTracks ?: TrackStore.EMPTY)
+        } else {
+            load.pages().collect { page -> emit(page) }
+        }
+    }.flowOn(Dispatchers.IO)
+
     override suspend fun getTrackById(id: Long): Track? {
-        return cachedTracks?.find { it.id == id }
+        val store = cachedTracks ?: return null
+        val index = store.indexOfId(id)
+        return if (index >= 0) store[index] else null
+    }
+
+    override suspend fun getTracksByArtist(artist: String): List<Track> =
+        cachedTracks?.tracksByArtist(artist).orEmpty()
+
+    override suspend fun getTracksByAlbum(album: String): List<Track> =
+        cachedTracks?.tracksByAlbum(album).orEmpty()
+
+    override suspend fun getTracksInFolder(folder: String): List<Track> =
+        cachedTracks?.tracksInFolder(folder).orEmpty()
+
+    override suspend fun getArtists(): List<String> = cachedTracks?.artistNames.orEmpty()
+
+    override suspend fun getAlbums(): List<String> = cachedTracks?.albumNames.orEmpty()
+
+    override suspend fun getFolders(): List<String> = cachedTracks?.folderNames.orEmpty()
+
+    override suspend fun searchTracks(query: String, limit: Int): List<Track> = withContext(Dispatchers.Default) {
+        if (!searchIndex.isBuilt) {
+            buildSearchIndex()
+        }
+        val store = cachedTracks ?: return@withContext emptyList()
+
+        searchIndex.search(query, limit).mapNotNull { id ->
+            val index = store.indexOfId(id)
+            if (index >= 0) store[index] else null
+        }
+    }
+
+    override fun observeLibraryChanges(): Flow<LibraryChange> = libraryChanges
+
+    // Under syncMutex, so a delta either is already in the store we build from or
+    // waits and is applied to the finished index
+    private suspend fun buildSearchIndex() = syncMutex.withLock {
+        if (searchIndex.isBuilt) return@withLock
+        val store = cachedTracks ?: return@withLock
+        searchIndex.rebuild(store)
+        // Invalidated while building, don't keep an index of the old library
+        synchronized(cacheLock) {
+            if (cachedTracks !== store) searchIndex.clear()
+        }
+    }
+
+    override fun invalidate() {
+        val detached = synchronized(cacheLock) {
+            cachedTracks = null
+            searchIndex.clear()
+            needsReconcile.value = false
+            inFlightLoad.also { inFlightLoad = null }
+        }
+        // A load still running would republish the library we are dropping
+        detached?.job?.cancel()
+        synchronized(indexLock) {
+            trackIndex.clear()
+        }
+    }
+
+    override suspend fun refresh(): List<Track> {
+        // Rescan videos alongside, the video repository picks that result up on its own
+        mediaIndexer.refreshAll(DEFAULT_PAGE_SIZE)
+        invalidate()
+        return getAllTracks().first()
+    }
+
+    /**
+     * Start the library load, or join the one already running. Returns null
+     * when the cache is ready, so there is nothing to wait for.
+     */
+    private fun joinLoad(pageSize: Int): LibraryLoad? = synchronized(cacheLock) {
+        if (cachedTracks != null) null else inFlightLoad ?: startLoad(pageSize)
+    }
+
+    // Called with cacheLock held
+    private fun startLoad(pageSize: Int): LibraryLoad {
+        val load = LibraryLoad()
+        inFlightLoad = load
+        load.job = repositoryScope.launch {
+            try {
+                loadLibrary(load, pageSize) { page -> load.events.emit(LoadEvent.Page(page)) }
+                load.events.emit(LoadEvent.Done)
+            } catch (e: CancellationException) {
+                // Detached by invalidate(), collectors end with the pages they already have
+                load.events.tryEmit(LoadEvent.Done)
+                throw e
+            } catch (e: Exception) {
+                load.events.emit(LoadEvent.Failed(e))
+            } finally {
+                synchronized(cacheLock) {
+                    if (inFlightLoad === load) inFlightLoad = null
+                }
+            }
+        }
+        return load
+    }
+
+    // Apply the MediaStore delta to the cache and return just the changed rows
+    private suspend fun syncChanges(): LibraryChange? = syncMutex.withLock {
+        withContext(Dispatchers.IO) {
+            // Nothing loaded yet, the first full scan will see the change
+            val current = cachedTracks ?: return@withContext null
+            needsReconcile.value = false
+
+            val knownIds = HashSet<Long>(current.size * 2)
+            for (index in 0 until current.size) {
+                knownIds.add(current.idAt(index))
+            }
+
+            val delta = audioScanner.scanChangesSince(syncWatermark, knownIds)
+            if (delta.isEmpty) {
+                synchronized(cacheLock) {
+                    if (cachedTracks !== current) return@withContext null
+                    syncWatermark = delta.watermark
+                }
+                persistIndex(current)
+                return@withContext null
+            }
+
+            val updatedById = delta.changed.filter { it.id in knownIds }.associateBy { it.id }
+            val added = delta.changed.filter { it.id !in knownIds }
+
+            // Keep existing positions stable and append new rows, so player queues
+            // can apply the same change by index
+            val builder = TrackStore.Builder(current.size + added.size)
+            val updatedTracks = ArrayList<Track>(updatedById.size)
+            for (index in 0 until current.size) {
+                val id = current.idAt(index)
+                if (id in delta.removedIds) continue
+
+                val update = updatedById[id]
+                if (update != null) {
+                    updatedTracks.add(builder.add(update))
+                } else {
+                    builder.addFrom(current, index)
+                }
+            }
+            val addedTracks = added.map { builder.add(it) }
+            val store = builder.build()
+
+            // Drop the result if the cache was invalidated while we were scanning
+            synchronized(cacheLock) {
+                if (cachedTracks !== current) return@withContext null
+                cachedTracks = store
+                syncWatermark = delta.watermark
+            }
+            persistIndex(store)
+
+            val change = LibraryChange(
+                added = addedTracks,
+                updated = updatedTracks,
+                removedIds = delta.removedIds,
+                library = store
+            )
+            if (searchIndex.isBuilt && !searchIndex.apply(change)) {
+                searchIndex.rebuild(store)
+            }
+            change
+        }
+    }
+
+    // Fill the cache from the on-disk index, or stream a full scan, handing out pages as they are ready
+    private suspend fun loadLibrary(load: LibraryLoad, pageSize: Int, onPage: suspend (List<Track>) -> Unit) {
+        val snapshot = trackIndex.read()
+        if (snapshot != null) {
+            // Serve the last known library right away, reconcile afterwards
+            if (!publish(load, snapshot.tracks, snapshot.watermark)) return
+            needsReconcile.value = true
+            onPage(snapshot.tracks)
+            return
+        }
+
+        // The watermark was taken when the claimed scan started, which may be well before now
+        val scan = mediaIndexer.claimAudio(pageSize)
+        val builder = TrackStore.Builder()
+        scan.pages.collect { page ->
+            onPage(page.map { builder.add(it) })
+        }
+
+        val store = builder.build()
+        if (publish(load, store, checkNotNull(scan.watermark))) {
+            persistIndex(store)
+        }
+    }
+
+    // False when invalidate() detached the load while it was reading
+    private fun publish(load: LibraryLoad, store: TrackStore, watermark: SyncWatermark): Boolean =
+        synchronized(cacheLock) {
+            if (inFlightLoad !== load) return false
+            cachedTracks = store
+            syncWatermark = watermark
+            true
+        }
+
+    // Only the library that is still cached goes to disk, never one invalidate() dropped
+    private fun persistIndex(tracks: TrackStore) {
+        synchronized(indexLock) {
+            val watermark = synchronized(cacheLock) {
+                if (cachedTracks !== tracks) return
+                syncWatermark
+            }
+            trackIndex.write(tracks, watermark)
+        }
+    }
+
+    // One shared scan; pages are replayed to every collector that joins while it runs
+    private class LibraryLoad {
+        val events = MutableSharedFlow<LoadEvent>(replay = Int.MAX_VALUE)
+
+        // Set right after launch, under cacheLock
+        var job: Job? = null
+
+        fun pages(): Flow<List<Track>> = events.transformWhile { event ->
+            when (event) {
+                is LoadEvent.Page -> {
+                    emit(event.tracks)
+                    true
+                }
+                LoadEvent.Done -> false
+                is LoadEvent.Failed -> throw event.error
+            }
+        }
+    }
+
+    private sealed interface LoadEvent {
+        class Page(val tracks: List<Track>) : LoadEvent
+        object Done : LoadEvent
+        class Failed(val error: Exception) : LoadEvent
+    }
+
+    companion object {
+        private const val CHANGE_DEBOUNCE_MS = 500L
+        private const val DEFAULT_PAGE_SIZE = 200
     }
 }
@@ -0,0 +1,144 @@
+package com.example.videoplayer.Data.Repository// data/repository/VideoRepository.kt
+import com.example.videoplayer.Data.Library.LongIntMap
+import com.example.videoplayer.Data.Library.PagedList
+import com.example.videoplayer.Data.Scanner.MediaIndexer
+import com.example.videoplayer.Data.Scanner.MediaTable
+import com.example.videoplayer.Domain.Models.LibraryFilter
+import com.example.videoplayer.Domain.Models.Video
+import com.example.videoplayer.Domain.Models.VideoScanner
+import com.example.videoplayer.Domain.Repository.IVideoRepository
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.FlowPreview
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.channels.BufferOverflow
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.FlowCollector
+import kotlinx.coroutines.flow.MutableSharedFlow
+import kotlinx.coroutines.flow.SharingStarted
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.debounce
+import kotlinx.coroutines.flow.emitAll
+import kotlinx.coroutines.flow.filter
+import kotlinx.coroutines.flow.flow
+import kotlinx.coroutines.flow.flowOn
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.flow.merge
+import kotlinx.coroutines.flow.onEach
+import kotlinx.coroutines.flow.stateIn
+import kotlinx.coroutines.flow.transformWhile
+
+
+
+class VideoRepository(
+    private val videoScanner: VideoScanner,
+    private val mediaIndexer: MediaIndexer
+) : IVideoRepository {
+
+    private val repositoryScope = CoroutineScope(Dispatchers.IO + SupervisorJob())
+
+    private val refreshRequests = MutableSharedFlow<Unit>(
+        extraBufferCapacity = 1,
+        onBufferOverflow = BufferOverflow.DROP_OLDEST
+    )
+
+    // Last published library and the MediaStore generation and filter it was scanned with
+    @Volatile
+    private var latest = VideoLibrary.EMPTY
+    @Volatile
+    private var scannedGeneration = -1L
+    @Volatile
+    private var scannedFilter: LibraryFilter? = null
+
+    /**
+     * One query shared by every screen. The upstream stops a few seconds after
+     * the last collector leaves; when it starts again the cached list is reused
+     * unless MediaStore or the library filter moved on in the meantime.
+     */
+    @OptIn(FlowPreview::class)
+    private val library: StateFlow<VideoLibrary> = flow {
+        val generation = videoScanner.currentGeneration()
+        val stale = generation < 0 || generation != scannedGeneration ||
+            videoScanner.currentFilter != scannedFilter
+        if (!latest.isComplete || stale) {
+            scan(progressive = !latest.isComplete)
+        } else {
+            emit(latest)
+        }
+
+        merge(
+            videoScanner.observeChanges().debounce(CHANGE_DEBOUNCE_MS),
+            refreshRequests,
+            // A full library refresh scanned videos for us, pick the result up
+            mediaIndexer.unclaimedResults.filter { it == MediaTable.VIDEO }
+        ).collect {
+            scan(progressive = false)
+        }
+    }
+        .onEach { latest = it }
+        .flowOn(Dispatchers.IO)
+        .stateIn(repositoryScope, SharingStarted.WhileSubscribed(STOP_TIMEOUT_MS), VideoLibrary.EMPTY)
+
+    override val videos: Flow<List<Video>> = library.map { it.videos }
+
+    override fun getVideoById(id: Long): Video? {
+        val current = latest
+        val index = current.indexById.get(id)
+        return if (index >= 0) current.videos[index] else null
+    }
+
+    override fun getVideoPages(): Flow<List<Video>> = flow {
+        var emitted = 0
+        emitAll(
+            library.transformWhile { snapshot ->
+                if (snapshot.videos.size > emitted) {
+                    emit(snapshot.videos.subList(emitted, snapshot.videos.size))
+                    emitted = snapshot.videos.size
+                }
+                !snapshot.isComplete
+            }
+        )
+    }
+
+    override fun refresh() {
+        refreshRequests.tryEmit(Unit)
+    }
+
+    // The first scan publishes every page so the list can render early; rescans publish once
+    private suspend fun FlowCollector<VideoLibrary>.scan(progressive: Boolean) {
+        // A claimed scan may have started before this call, keep what it was taken against
+        val claimed = mediaIndexer.claimVideo(PAGE_SIZE)
+        scannedGeneration = claimed.generation
+        scannedFilter = claimed.filter
+        // Each emission is a snapshot sharing the pages read so far, nothing is copied per page
+        var videos = PagedList<Video>()
+        claimed.pages.collect { page ->
+            videos = videos.append(page)
+            if (progressive) {
+                emit(VideoLibrary(videos, isComplete = false))
+            }
+        }
+        emit(VideoLibrary(videos, isComplete = true))
+    }
+
+    private class VideoLibrary(
+        val videos: List<Video>,
+        val isComplete: Boolean
+    ) {
+        val indexById by lazy {
+            LongIntMap(videos.size).also { map ->
+                videos.forEachIndexed { index, video -> map.put(video.id, index) }
+            }
+        }
+
+        companion object {
+            val EMPTY = VideoLibrary(emptyList(), isComplete = false)
+        }
+    }
+
+    companion object {
+        private const val PAGE_SIZE = 100
+        private const val CHANGE_DEBOUNCE_MS = 500L
+        private const val STOP_TIMEOUT_MS = 5000L
+    }
+}
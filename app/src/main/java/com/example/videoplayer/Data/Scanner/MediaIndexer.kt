@@ -0,0 +1,242 @@
+package com.example.videoplayer.Data.Scanner// data/scanner/MediaIndexer.kt
+import android.os.SystemClock
+import android.util.Log
+import com.example.videoplayer.Domain.Models.AudioScanner
+import com.example.videoplayer.Domain.Models.AudioTrack
+import com.example.videoplayer.Domain.Models.LibraryFilter
+import com.example.videoplayer.Domain.Models.SyncWatermark
+import com.example.videoplayer.Domain.Models.Video
+import com.example.videoplayer.Domain.Models.VideoScanner
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.MutableSharedFlow
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.SharedFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asSharedFlow
+import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.flow.onCompletion
+import kotlinx.coroutines.flow.transformWhile
+import kotlinx.coroutines.flow.update
+import kotlinx.coroutines.launch
+
+private const val MEDIA_INDEXER_LOGGER = "MEDIA_INDEXER"
+
+enum class MediaTable { AUDIO, VIDEO }
+
+data class TableProgress(
+    val table: MediaTable,
+    val rowsRead: Int = 0,
+    val isComplete: Boolean = false,
+    val elapsedMs: Long = 0L
+)
+
+// A claimed scan, and where MediaStore and the filter stood when it started
+class TableScan<T>(
+    val pages: Flow<List<T>>,
+    val generation: Long,            // table generation, -1 before API 30
+    val filter: LibraryFilter,
+    val watermark: SyncWatermark?    // audio only, the delta sync resumes from here
+)
+
+/**
+ * Single entry point for full scans of the MediaStore audio and video tables.
+ *
+ * Tables scan in parallel on a dispatcher bounded to one thread per table, so
+ * a full refresh takes about as long as the slower table. Each table's rows
+ * are kept in a replaying buffer until its repository claims them: a refresh
+ * started by one side leaves a fresh result waiting for the other. Once the
+ * claimer is done with them the rows are dropped, the repository keeps its own copy.
+ */
+class MediaIndexer(
+    private val audioScanner: AudioScanner,
+    private val videoScanner: VideoScanner
+) {
+
+    @OptIn(ExperimentalCoroutinesApi::class)
+    private val scanDispatcher = Dispatchers.IO.limitedParallelism(MediaTable.entries.size)
+    private val indexerScope = CoroutineScope(scanDispatcher + SupervisorJob())
+
+    private val _progress = MutableStateFlow<Map<MediaTable, TableProgress>>(emptyMap())
+    val progress: StateFlow<Map<MediaTable, TableProgress>> = _progress.asStateFlow()
+
+    // Tables whose fresh result nobody has picked up yet
+    private val _unclaimedResults = MutableSharedFlow<MediaTable>(extraBufferCapacity = MediaTable.entries.size)
+    val unclaimedResults: SharedFlow<MediaTable> = _unclaimedResults.asSharedFlow()
+
+    // Guards the outputs below
+    private val lock = Any()
+    private var audioOutput: TableOutput<AudioTrack>? = null
+    private var videoOutput: TableOutput<Video>? = null
+
+    // Claim the waiting audio result, or start a scan; collect the pages right away
+    fun claimAudio(pageSize: Int): TableScan<AudioTrack> = synchronized(lock) {
+        val output = audioOutput?.takeIf { it.tryClaim() } ?: run {
+            startTable(MediaTable.AUDIO, pageSize)
+            audioOutput!!.also { it.tryClaim() }
+        }
+        output.claimed()
+    }
+
+    fun claimVideo(pageSize: Int): TableScan<Video> = synchronized(lock) {
+        val output = videoOutput?.takeIf { it.tryClaim() } ?: run {
+            startTable(MediaTable.VIDEO, pageSize)
+            videoOutput!!.also { it.tryClaim() }
+        }
+        output.claimed()
+    }
+
+    // Scan every table now; repositories pick the results up on their next load
+    fun refreshAll(pageSize: Int = DEFAULT_PAGE_SIZE) {
+        synchronized(lock) {
+            startTable(MediaTable.AUDIO, pageSize)
+            startTable(MediaTable.VIDEO, pageSize)
+        }
+    }
+
+    // Called with lock held. Only a table someone asked for is scanned: the music library is
+    // usually served from its on-disk index, and a scan nobody claims is wasted work.
+    private fun startTable(table: MediaTable, pageSize: Int) {
+        when (table) {
+            MediaTable.AUDIO -> {
+                val output = TableOutput<AudioTrack>(table, audioScanner.currentWatermark())
+                audioOutput = output
+                output.job = launchScan(table, output, audioScanner.scanAudioFilesPaged(pageSize))
+            }
+            MediaTable.VIDEO -> {
+                val output = TableOutput<Video>(table, watermark = null)
+                videoOutput = output
+                output.job = launchScan(table, output, videoScanner.scanVideosPaged(pageSize))
+            }
+        }
+    }
+
+    private fun generationOf(table: MediaTable): Long = when (table) {
+        MediaTable.AUDIO -> audioScanner.currentGeneration()
+        MediaTable.VIDEO -> videoScanner.currentGeneration()
+    }
+
+    private fun filterOf(table: MediaTable): LibraryFilter = when (table) {
+        MediaTable.AUDIO -> audioScanner.currentFilter
+        MediaTable.VIDEO -> videoScanner.currentFilter
+    }
+
+    // The claimer finished with or abandoned the rows; nobody else may have them, so let them go
+    private fun release(output: TableOutput<*>) {
+        val job = synchronized(lock) {
+            if (audioOutput === output) audioOutput = null
+            if (videoOutput === output) videoOutput = null
+            output.job
+        }
+        job?.cancel()
+        output.events.resetReplayCache()
+    }
+
+    private fun <T> launchScan(table: MediaTable, output: TableOutput<T>, source: Flow<List<T>>): Job =
+        indexerScope.launch {
+            val startedAt = SystemClock.elapsedRealtime()
+            var rowsRead = 0
+            reportProgress(TableProgress(table))
+
+            try {
+                source.collect { page ->
+                    rowsRead += page.size
+                    output.events.emit(ScanEvent.Page(page))
+                    reportProgress(
+                        TableProgress(table, rowsRead, elapsedMs = SystemClock.elapsedRealtime() - startedAt)
+                    )
+                }
+                output.events.emit(ScanEvent.Done)
+                output.finishedAt = SystemClock.elapsedRealtime()
+
+                val elapsed = output.finishedAt - startedAt
+                reportProgress(TableProgress(table, rowsRead, isComplete = true, elapsedMs = elapsed))
+                Log.d(MEDIA_INDEXER_LOGGER, "Indexed $rowsRead $table rows in $elapsed ms")
+
+                if (!output.isClaimed) {
+                    _unclaimedResults.tryEmit(table)
+                }
+            } catch (e: CancellationException) {
+                throw e
+            } catch (e: Exception) {
+                Log.e(MEDIA_INDEXER_LOGGER, "Indexing $table failed", e)
+                output.events.emit(ScanEvent.Failed(e))
+            }
+        }
+
+    private fun reportProgress(progress: TableProgress) {
+        _progress.update { it + (progress.table to progress) }
+    }
+
+    private sealed interface ScanEvent<out T> {
+        class Page<T>(val rows: List<T>) : ScanEvent<T>
+        object Done : ScanEvent<Nothing>
+        class Failed(val error: Exception) : ScanEvent<Nothing>
+    }
+
+    // Rows of one table from one run, replayed to whoever claims them
+    private inner class TableOutput<T>(
+        private val table: MediaTable,
+        private val watermark: SyncWatermark?
+    ) {
+        // Read before the scan starts, so rows changed while it runs count as changed afterwards
+        private val generation = generationOf(table)
+        private val filter = filterOf(table)
+
+        val events = MutableSharedFlow<ScanEvent<T>>(replay = Int.MAX_VALUE)
+
+        // Set right after launch, under lock
+        var job: Job? = null
+
+        @Volatile
+        var finishedAt = 0L
+
+        // Read by the scan outside lock
+        @Volatile
+        var isClaimed = false
+            private set
+
+        // Still running, or finished and neither MediaStore nor the filter has moved on since
+        private val isFresh: Boolean
+            get() {
+                if (filterOf(table) != filter) return false
+                if (finishedAt == 0L) return true
+                val current = generationOf(table)
+                return if (current >= 0) {
+                    current == generation
+                } else {
+                    SystemClock.elapsedRealtime() - finishedAt < FRESH_WINDOW_MS
+                }
+            }
+
+        // Called with lock held
+        fun tryClaim(): Boolean {
+            if (isClaimed || !isFresh) return false
+            isClaimed = true
+            return true
+        }
+
+        fun claimed(): TableScan<T> = TableScan(pages(), generation, filter, watermark)
+
+        private fun pages(): Flow<List<T>> = events.transformWhile { event ->
+            when (event) {
+                is ScanEvent.Page -> {
+                    emit(event.rows)
+                    true
+                }
+                ScanEvent.Done -> false
+                is ScanEvent.Failed -> throw event.error
+            }
+        }.onCompletion { release(this@TableOutput) }
+    }
+
+    companion object {
+        private const val DEFAULT_PAGE_SIZE = 200
+        private const val FRESH_WINDOW_MS = 30_000L
+    }
+}
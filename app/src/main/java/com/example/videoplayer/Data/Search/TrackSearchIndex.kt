@@ -0,0 +1,267 @@
+package com.example.videoplayer.Data.Search// data/search/TrackSearchIndex.kt
+import com.example.videoplayer.Domain.Models.LibraryChange
+import com.example.videoplayer.Domain.Models.Track
+import java.text.Normalizer
+import java.util.BitSet
+import java.util.Locale
+
+/**
+ * Inverted index over title, artist and album.
+ *
+ * Terms are kept sorted so a prefix is a contiguous range found by binary
+ * search, and each term points at the rows that contain it. Query tokens are
+ * matched as prefixes and AND-ed together with bitsets. A token with no
+ * prefix hit falls back to terms within one or two edits (same first letter).
+ *
+ * Library changes go into a small overlay segment plus a set of tombstoned
+ * ids, so an edit never rebuilds the whole index. Results are track ids in
+ * library order.
+ */
+class TrackSearchIndex {
+
+    @Volatile
+    private var snapshot: Snapshot? = null
+
+    val isBuilt: Boolean get() = snapshot != null
+
+    @Synchronized
+    fun rebuild(tracks: List<Track>) {
+        snapshot = Snapshot(
+            base = Segment.build(tracks),
+            overlay = Segment.EMPTY,
+            overlayTracks = emptyMap(),
+            tombstones = emptySet()
+        )
+    }
+
+    @Synchronized
+    fun clear() {
+        snapshot = null
+    }
+
+    /**
+     * Fold a library change into the overlay. Returns false when the overlay
+     * has grown large enough that the caller should [rebuild] instead.
+     */
+    @Synchronized
+    fun apply(change: LibraryChange): Boolean {
+        val current = snapshot ?: return true
+
+        val overlayTracks = current.overlayTracks.toMutableMap()
+        change.removedIds.forEach { overlayTracks.remove(it) }
+        change.updated.forEach { overlayTracks[it.id] = it }
+        change.added.forEach { overlayTracks[it.id] = it }
+        if (overlayTracks.size > MAX_OVERLAY_SIZE) return false
+
+        snapshot = Snapshot(
+            base = current.base,
+            overlay = Segment.build(overlayTracks.values.toList()),
+            overlayTracks = overlayTracks,
+            tombstones = current.tombstones + change.removedIds + change.updated.map { it.id }
+        )
+        return true
+    }
+
+    fun search(query: String, limit: Int): LongArray {
+        val current = snapshot ?: return LongArray(0)
+        val tokens = LinkedHashSet<String>()
+        tokenize(query) { tokens.add(it) }
+        if (tokens.isEmpty()) return LongArray(0)
+
+        val results = LongArray(limit)
+        var count = 0
+
+        current.base.search(tokens)?.let { rows ->
+            var row = rows.nextSetBit(0)
+            while (row >= 0 && count < limit) {
+                val id = current.base.ids[row]
+                if (id !in current.tombstones) {
+                    results[count++] = id
+                }
+                row = rows.nextSetBit(row + 1)
+            }
+        }
+
+        current.overlay.search(tokens)?.let { rows ->
+            var row = rows.nextSetBit(0)
+            while (row >= 0 && count < limit) {
+                results[count++] = current.overlay.ids[row]
+                row = rows.nextSetBit(row + 1)
+            }
+        }
+
+        return results.copyOf(count)
+    }
+
+    private class Snapshot(
+        val base: Segment,
+        val overlay: Segment,
+        val overlayTracks: Map<Long, Track>,
+        val tombstones: Set<Long>
+    )
+
+    private class Segment(
+        val ids: LongArray,
+        private val terms: Array<String>,
+        private val postings: Array<IntArray>
+    ) {
+
+        // Rows matching every token, or null when any token has no match
+        fun search(tokens: Collection<String>): BitSet? {
+            var result: BitSet? = null
+            for (token in tokens) {
+                val rows = match(token)
+                if (rows.isEmpty) return null
+                if (result == null) result = rows else result.and(rows)
+                if (result.isEmpty) return null
+            }
+            return result
+        }
+
+        private fun match(token: String): BitSet {
+            val rows = BitSet(ids.size)
+            val start = lowerBound(token)
+            var index = start
+            while (index < terms.size && terms[index].startsWith(token)) {
+                postings[index].forEach { rows.set(it) }
+                index++
+            }
+
+            val maxEdits = maxEditsFor(token)
+            if (index == start && maxEdits > 0) {
+                // No prefix hit, look for a near miss among terms with the same first letter
+                index = lowerBound(token.substring(0, 1))
+                while (index < terms.size && terms[index][0] == token[0]) {
+                    if (isWithinEdits(token, terms[index], maxEdits)) {
+                        postings[index].forEach { rows.set(it) }
+                    }
+                    index++
+                }
+            }
+            return rows
+        }
+
+        private fun lowerBound(key: String): Int {
+            var low = 0
+            var high = terms.size
+            while (low < high) {
+                val mid = (low + high) ushr 1
+                if (terms[mid] < key) low = mid + 1 else high = mid
+            }
+            return low
+        }
+
+        companion object {
+            val EMPTY = Segment(LongArray(0), emptyArray(), emptyArray())
+
+            fun build(tracks: List<Track>): Segment {
+                val rowsByTerm = HashMap<String, RowList>()
+                val ids = LongArray(tracks.size)
+
+                tracks.forEachIndexed { row, track ->
+                    ids[row] = track.id
+                    val addTerm: (String) -> Unit = { term ->
+                        rowsByTerm.getOrPut(term) { RowList() }.add(row)
+                    }
+                    tokenize(track.title, addTerm)
+                    tokenize(track.artist, addTerm)
+                    tokenize(track.album, addTerm)
+                }
+
+                val terms = rowsByTerm.keys.toTypedArray()
+                terms.sort()
+                return Segment(
+                    ids = ids,
+                    terms = terms,
+                    postings = Array(terms.size) { rowsByTerm.getValue(terms[it]).toArray() }
+                )
+            }
+        }
+    }
+
+    // Append-only row list that skips a row added twice in a row (same term in two fields)
+    private class RowList {
+        private var rows = IntArray(4)
+        private var size = 0
+
+        fun add(row: Int) {
+            if (size > 0 && rows[size - 1] == row) return
+            if (size == rows.size) rows = rows.copyOf(size * 2)
+            rows[size++] = row
+        }
+
+        fun toArray(): IntArray = rows.copyOf(size)
+    }
+
+    companion object {
+        private const val MAX_OVERLAY_SIZE = 2000
+        private val COMBINING_MARKS = Regex("\\p{Mn}+")
+
+        private fun tokenize(text: String, onToken: (String) -> Unit) {
+            val normalized = Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replace(COMBINING_MARKS, "")
+                .lowercase(Locale.ROOT)
+
+            var start = -1
+            for (index in 0..normalized.length) {
+                val isWordChar = index < normalized.length && normalized[index].isLetterOrDigit()
+                if (isWordChar) {
+                    if (start < 0) start = index
+                } else if (start >= 0) {
+                    onToken(normalized.substring(start, index))
+                    start = -1
+                }
+            }
+        }
+
+        private fun maxEditsFor(token: String): Int = when {
+            token.length < 4 -> 0
+            token.length < 8 -> 1
+            else -> 2
+        }
+
+        /**
+         * Optimal string alignment distance between [token] and the start of
+         * [term], so a mistyped prefix still matches a longer title word.
+         */
+        private fun isWithinEdits(token: String, term: String, maxEdits: Int): Boolean {
+            val termLength = minOf(term.length, token.length + maxEdits)
+            if (kotlin.math.abs(termLength - token.length) > maxEdits) return false
+
+            var previous2 = IntArray(termLength + 1)
+            var previous = IntArray(termLength + 1) { it }
+            var current = IntArray(termLength + 1)
+            var best = Int.MAX_VALUE
+
+            for (i in 1..token.length) {
+                current[0] = i
+                var rowMin = current[0]
+                for (j in 1..termLength) {
+                    val cost = if (token[i - 1] == term[j - 1]) 0 else 1
+                    var value = minOf(
+                        previous[j] + 1,
+                        current[j - 1] + 1,
+                        previous[j - 1] + cost
+                    )
+                    if (i > 1 && j > 1 && token[i - 1] == term[j - 2] && token[i - 2] == term[j - 1]) {
+                        value = minOf(value, previous2[j - 2] + 1)
+                    }
+                    current[j] = value
+                    rowMin = minOf(rowMin, value)
+                }
+                if (rowMin > maxEdits) return false
+
+                val recycled = previous2
+                previous2 = previous
+                previous = current
+                current = recycled
+            }
+
+            // The token may match any prefix of the term within the edit budget
+            for (j in maxOf(0, token.length - maxEdits)..termLength) {
+                best = minOf(best, previous[j])
+            }
+            return best <= maxEdits
+        }
+    }
+}
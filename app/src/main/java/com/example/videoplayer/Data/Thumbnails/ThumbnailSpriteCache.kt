@@ -0,0 +1,133 @@
+package com.example.videoplayer.Data.Thumbnails// data/thumbnails/ThumbnailSpriteCache.kt
+import android.content.Context
+import android.graphics.Bitmap
+import android.graphics.BitmapFactory
+import android.util.Log
+import com.example.videoplayer.Domain.Models.Video
+import java.io.File
+import java.io.FileOutputStream
+
+private const val THUMBNAIL_CACHE_LOGGER = "THUMBNAIL_CACHE"
+
+/**
+ * Where each thumbnail sits in a sprite. The layout only depends on the
+ * duration, so it never has to be stored next to the image.
+ */
+class SpriteLayout private constructor(
+    val intervalMs: Long,
+    val count: Int
+) {
+    val columns: Int get() = COLUMNS
+    val rows: Int get() = (count + COLUMNS - 1) / COLUMNS
+
+    // Tile shown for a playback position, the one at or just before it
+    fun tileAt(positionMs: Long): Int =
+        (positionMs.coerceAtLeast(0L) / intervalMs).toInt().coerceIn(0, count - 1)
+
+    fun timeOf(tile: Int): Long = tile * intervalMs
+
+    companion object {
+        const val COLUMNS = 10
+        const val TILE_WIDTH = 128
+        private const val MAX_TILES = 100
+        private const val MIN_INTERVAL_MS = 2_000L
+
+        fun forDuration(durationMs: Long): SpriteLayout {
+            val duration = durationMs.coerceAtLeast(0L)
+            val interval = maxOf(MIN_INTERVAL_MS, (duration + MAX_TILES - 1) / MAX_TILES)
+            val count = (duration / interval + 1).toInt().coerceAtMost(MAX_TILES)
+            return SpriteLayout(interval, count)
+        }
+    }
+}
+
+// Decoded sprite for one video, tiles are laid out row by row
+class ThumbnailSprite(
+    val videoId: Long,
+    val bitmap: Bitmap,
+    val layout: SpriteLayout
+) {
+    val tileWidth: Int get() = bitmap.width / layout.columns
+    val tileHeight: Int get() = bitmap.height / layout.rows
+}
+
+/**
+ * Trick-play sprites on disk, one JPEG per video. The file name carries the
+ * duration and size, so a replaced file gets a new sprite instead of stale
+ * frames. Least recently used sprites are evicted past [maxBytes].
+ */
+class ThumbnailSpriteCache(
+    context: Context,
+    private val maxBytes: Long = DEFAULT_MAX_BYTES
+) {
+
+    private val directory = File(context.cacheDir, DIRECTORY_NAME)
+
+    fun contains(video: Video): Boolean = fileFor(video).exists()
+
+    fun read(video: Video): ThumbnailSprite? {
+        val file = fileFor(video)
+        if (!file.exists()) return null
+
+        val options = BitmapFactory.Options().apply {
+            inPreferredConfig = Bitmap.Config.RGB_565
+        }
+        val bitmap = BitmapFactory.decodeFile(file.path, options)
+        if (bitmap == null) {
+            Log.w(THUMBNAIL_CACHE_LOGGER, "Unreadable sprite ${file.name}, discarding")
+            file.delete()
+            return null
+        }
+
+        // Reads count as use for eviction
+        file.setLastModified(System.currentTimeMillis())
+        return ThumbnailSprite(video.id, bitmap, SpriteLayout.forDuration(video.duration))
+    }
+
+    // Written to a temp file first, readers never see half a sprite
+    fun write(video: Video, sprite: Bitmap) {
+        directory.mkdirs()
+        val file = fileFor(video)
+        val temp = File(directory, "${file.name}.tmp")
+        try {
+            FileOutputStream(temp).use { output ->
+                sprite.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, output)
+            }
+            if (!temp.renameTo(file)) {
+                temp.delete()
+                return
+            }
+        } catch (e: Exception) {
+            Log.e(THUMBNAIL_CACHE_LOGGER, "Failed to write sprite for ${video.id}", e)
+            temp.delete()
+            return
+        }
+        evict()
+    }
+
+    fun clear() {
+        directory.listFiles()?.forEach { it.delete() }
+    }
+
+    private fun evict() {
+        val files = directory.listFiles { file -> file.name.endsWith(EXTENSION) } ?: return
+        var total = files.sumOf { it.length() }
+        if (total <= maxBytes) return
+
+        for (file in files.sortedBy { it.lastModified() }) {
+            if (total <= maxBytes) break
+            total -= file.length()
+            file.delete()
+        }
+    }
+
+    private fun fileFor(video: Video): File =
+        File(directory, "${video.id}_${video.duration}_${video.size}$EXTENSION")
+
+    companion object {
+        private const val DIRECTORY_NAME = "trick_play"
+        private const val EXTENSION = ".jpg"
+        private const val JPEG_QUALITY = 70
+        private const val DEFAULT_MAX_BYTES = 32L * 1024 * 1024
+    }
+}
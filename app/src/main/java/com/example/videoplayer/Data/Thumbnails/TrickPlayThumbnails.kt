@@ -0,0 +1,219 @@
+package com.example.videoplayer.Data.Thumbnails// data/thumbnails/TrickPlayThumbnails.kt
+import android.content.Context
+import android.graphics.Bitmap
+import android.graphics.Canvas
+import android.graphics.Rect
+import android.media.MediaCodecList
+import android.media.MediaFormat
+import android.media.MediaMetadataRetriever
+import android.os.Build
+import android.os.Process
+import android.util.Log
+import com.example.videoplayer.Domain.Models.Video
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.asCoroutineDispatcher
+import kotlinx.coroutines.ensureActive
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.MutableSharedFlow
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.collectLatest
+import kotlinx.coroutines.flow.filter
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.flow.flowOn
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.flow.onSubscription
+import kotlinx.coroutines.flow.transformWhile
+import kotlinx.coroutines.isActive
+import kotlinx.coroutines.launch
+import java.util.concurrent.Executors
+import kotlin.coroutines.coroutineContext
+
+private const val TRICK_PLAY_LOGGER = "TRICK_PLAY"
+
+/**
+ * Builds seek preview sprites in the background: one low resolution keyframe
+ * every [SpriteLayout.intervalMs], decoded with MediaMetadataRetriever and
+ * packed into a single JPEG by [ThumbnailSpriteCache].
+ *
+ * Work runs on one background-priority thread, so there is never more than one
+ * extraction decoder alive, and it never decodes next to the player: tiles
+ * are only taken while the player is paused or idle, see [setPlayerDecoderUse].
+ * On devices that report too few video decoder instances to share, it also
+ * waits until the player has released its decoder. [prioritize] replaces the
+ * queue; the first entry is the current item and an extraction for anything
+ * else is cancelled in its favour.
+ */
+class TrickPlayThumbnails(
+    private val context: Context,
+    private val cache: ThumbnailSpriteCache
+) {
+
+    private val dispatcher = Executors.newSingleThreadExecutor { runnable ->
+        Thread({
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND)
+            runnable.run()
+        }, "trick-play").apply { isDaemon = true }
+    }.asCoroutineDispatcher()
+
+    private val scope = CoroutineScope(dispatcher + SupervisorJob())
+
+    // Videos still wanted, most important first
+    private val wanted = MutableStateFlow<List<Video>>(emptyList())
+
+    // What the player is doing with its decoder, extraction holds off while it needs it
+    private val playerDecoderUse = MutableStateFlow(PlayerDecoderUse())
+
+    // Some low-end SoCs only have one or two hardware decoder instances to go around
+    private val hasSpareDecoder: Boolean by lazy {
+        maxVideoDecoderInstances() >= MIN_DECODER_INSTANCES
+    }
+
+    // Ids of videos whose sprite just landed in the cache
+    private val extracted = MutableSharedFlow<Long>(extraBufferCapacity = 16)
+
+    init {
+        scope.launch {
+            // A new queue cancels the extraction in progress
+            wanted.collectLatest { videos ->
+                for (video in videos) {
+                    if (!cache.contains(video)) {
+                        extract(video)
+                    }
+                }
+            }
+        }
+    }
+
+    // First entry is the current item; anything not listed is dropped
+    fun prioritize(videos: List<Video>) {
+        wanted.value = videos.filter { it.duration > 0 }
+    }
+
+    fun cancel() {
+        wanted.value = emptyList()
+    }
+
+    /**
+     * [decoding]: the player is playing or buffering. [holdsDecoder]: it has
+     * media prepared, so a codec is allocated even while paused.
+     */
+    fun setPlayerDecoderUse(decoding: Boolean, holdsDecoder: Boolean) {
+        playerDecoderUse.value = PlayerDecoderUse(decoding, holdsDecoder)
+    }
+
+    /**
+     * Sprite for [video]: null until it is available, then the sprite. Does
+     * not start an extraction by itself, see [prioritize].
+     */
+    fun sprite(video: Video): Flow<ThumbnailSprite?> =
+        extracted
+            // Check the cache once subscribed, so a sprite finished in between is not missed
+            .onSubscription { emit(video.id) }
+            .filter { it == video.id }
+            .map { cache.read(video) }
+            .transformWhile { sprite ->
+                emit(sprite)
+                sprite == null
+            }
+            .flowOn(Dispatchers.IO)
+
+    private suspend fun extract(video: Video) {
+        val layout = SpriteLayout.forDuration(video.duration)
+        val retriever = MediaMetadataRetriever()
+        var sprite: Bitmap? = null
+        try {
+            retriever.setDataSource(context, video.uri)
+            val tileWidth = SpriteLayout.TILE_WIDTH
+            val tileHeight = tileHeight(retriever, tileWidth)
+            sprite = Bitmap.createBitmap(
+                layout.columns * tileWidth,
+                layout.rows * tileHeight,
+                Bitmap.Config.RGB_565
+            )
+            val canvas = Canvas(sprite)
+            val target = Rect()
+
+            for (tile in 0 until layout.count) {
+                awaitDecoderFree()
+                coroutineContext.ensureActive()
+
+                // Nearest keyframe only, no decoding forward to the exact time
+                val frame = frameAt(retriever, layout.timeOf(tile) * 1000, tileWidth, tileHeight)
+                    ?: continue
+                // The decode itself can't be interrupted; drop its result if we were cancelled meanwhile
+                if (!coroutineContext.isActive) {
+                    frame.recycle()
+                    coroutineContext.ensureActive()
+                }
+                val left = (tile % layout.columns) * tileWidth
+                val top = (tile / layout.columns) * tileHeight
+                target.set(left, top, left + tileWidth, top + tileHeight)
+                canvas.drawBitmap(frame, null, target, null)
+                frame.recycle()
+            }
+
+            cache.write(video, sprite)
+            extracted.emit(video.id)
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
+            Log.w(TRICK_PLAY_LOGGER, "Could not extract thumbnails for ${video.id}", e)
+        } finally {
+            sprite?.recycle()
+            retriever.release()
+        }
+    }
+
+    private suspend fun awaitDecoderFree() {
+        playerDecoderUse.first { use ->
+            !use.decoding && (!use.holdsDecoder || hasSpareDecoder)
+        }
+    }
+
+    private fun maxVideoDecoderInstances(): Int = try {
+        MediaCodecList(MediaCodecList.REGULAR_CODECS).codecInfos
+            .filter { !it.isEncoder && MediaFormat.MIMETYPE_VIDEO_AVC in it.supportedTypes }
+            .maxOfOrNull { it.getCapabilitiesForType(MediaFormat.MIMETYPE_VIDEO_AVC).maxSupportedInstances }
+            ?: 0
+    } catch (e: RuntimeException) {
+        Log.w(TRICK_PLAY_LOGGER, "Could not read decoder capabilities", e)
+        0
+    }
+
+    private fun frameAt(
+        retriever: MediaMetadataRetriever,
+        timeUs: Long,
+        width: Int,
+        height: Int
+    ): Bitmap? =
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O_MR1) {
+            retriever.getScaledFrameAtTime(timeUs, MediaMetadataRetriever.OPTION_CLOSEST_SYNC, width, height)
+        } else {
+            retriever.getFrameAtTime(timeUs, MediaMetadataRetriever.OPTION_CLOSEST_SYNC)
+        }
+
+    // Tile height from the displayed aspect ratio, rotation included
+    private fun tileHeight(retriever: MediaMetadataRetriever, tileWidth: Int): Int {
+        var width = retriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_VIDEO_WIDTH)?.toIntOrNull() ?: 0
+        var height = retriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_VIDEO_HEIGHT)?.toIntOrNull() ?: 0
+        val rotation = retriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_VIDEO_ROTATION)?.toIntOrNull() ?: 0
+        if (rotation == 90 || rotation == 270) {
+            width = height.also { height = width }
+        }
+        if (width <= 0 || height <= 0) return tileWidth * 9 / 16
+        return (tileWidth * height / width).coerceIn(1, tileWidth * 2)
+    }
+
+    private data class PlayerDecoderUse(
+        val decoding: Boolean = false,
+        val holdsDecoder: Boolean = false
+    )
+
+    companion object {
+        // The player's decoder, the retriever's, and one to spare
+        private const val MIN_DECODER_INSTANCES = 3
+    }
+}
@@ -1,7 +1,21 @@
 package com.example.videoplayer.Domain.Models// data/local/AudioTrack.kt
 import android.content.ContentUris
 import android.content.Context
+import android.database.ContentObserver
+import android.database.Cursor
+import android.os.Build
 import android.provider.MediaStore
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.channels.awaitClose
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.callbackFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.conflate
+import kotlinx.coroutines.flow.drop
+import kotlinx.coroutines.flow.flow
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.flow.merge
+import kotlinx.coroutines.withContext
 
 data class AudioTrack(
     val id: Long,
@@ -12,60 +26,236 @@ data class AudioTrack(
     val data: String
 ) {
     val uri: String get() = ContentUris.withAppendedId(
-        MediaStore.Audio.Media.EXTERNAL_CONTENT_URI, 
+        MediaStore.Audio.Media.EXTERNAL_CONTENT_URI,
         id
     ).toString()
-    
+
     val albumArtUri: String? get() = ContentUris.withAppendedId(
         android.net.Uri.parse("content://media/external/audio/albumart"),
         id
     ).toString()
 }
 
-class AudioScanner(private val context: Context) {
+// Point in MediaStore history that the last sync has caught up to
+data class SyncWatermark(
+    val generation: Long = 0L,   // MediaStore generation (API 30+)
+    val dateSeconds: Long = 0L,  // DATE_ADDED / DATE_MODIFIED fallback for older devices
+    val version: String = ""     // MediaStore version the generation belongs to (API 30+)
+)
+
+// Rows that changed since a watermark
+data class AudioScanDelta(
+    val changed: List<AudioTrack>,
+    val removedIds: Set<Long>,
+    val watermark: SyncWatermark
+) {
+    val isEmpty: Boolean get() = changed.isEmpty() && removedIds.isEmpty()
+}
+
+class AudioScanner(
+    private val context: Context,
+    private val filter: StateFlow<LibraryFilter>
+) {
+
+    private val projection = arrayOf(
+        MediaStore.Audio.Media._ID,
+        MediaStore.Audio.Media.TITLE,
+        MediaStore.Audio.Media.ARTIST,
+        MediaStore.Audio.Media.ALBUM,
+        MediaStore.Audio.Media.DURATION,
+        MediaStore.Audio.Media.DATA
+    )
+
+    // Recompiled per query so filter edits apply to the next scan
+    private val musicSelection: MediaSelection get() = filter.value.toAudioSelection()
+    private val sortOrder = "${MediaStore.Audio.Media.TITLE} ASC"
+
     suspend fun scanAudioFiles(): List<AudioTrack> {
-        val tracks = mutableListOf<AudioTrack>()
-        
-        val projection = arrayOf(
-            MediaStore.Audio.Media._ID,
-            MediaStore.Audio.Media.TITLE,
-            MediaStore.Audio.Media.ARTIST,
-            MediaStore.Audio.Media.ALBUM,
-            MediaStore.Audio.Media.DURATION,
-            MediaStore.Audio.Media.DATA
-        )
-        
-        val selection = "${MediaStore.Audio.Media.IS_MUSIC} != 0"
-        val sortOrder = "${MediaStore.Audio.Media.TITLE} ASC"
-        
+        return queryTracks(musicSelection)
+    }
+
+    /**
+     * Same rows as [scanAudioFiles], emitted in pages of [pageSize] as the
+     * cursor window is read instead of once at the end. Runs on the collector's
+     * dispatcher, so the caller decides how many scans may hit MediaStore at once.
+     */
+    fun scanAudioFilesPaged(pageSize: Int): Flow<List<AudioTrack>> = flow {
+        val selection = musicSelection
         context.contentResolver.query(
             MediaStore.Audio.Media.EXTERNAL_CONTENT_URI,
             projection,
-            selection,
-            null,
+            selection.selection,
+            selection.selectionArgs,
             sortOrder
         )?.use { cursor ->
-            val idColumn = cursor.getColumnIndexOrThrow(MediaStore.Audio.Media._ID)
-            val titleColumn = cursor.getColumnIndexOrThrow(MediaStore.Audio.Media.TITLE)
-            val artistColumn = cursor.getColumnIndexOrThrow(MediaStore.Audio.Media.ARTIST)
-            val albumColumn = cursor.getColumnIndexOrThrow(MediaStore.Audio.Media.ALBUM)
-            val durationColumn = cursor.getColumnIndexOrThrow(MediaStore.Audio.Media.DURATION)
-            val dataColumn = cursor.getColumnIndexOrThrow(MediaStore.Audio.Media.DATA)
-            
+            val columns = AudioColumns(cursor)
+            var page = ArrayList<AudioTrack>(pageSize)
+
             while (cursor.moveToNext()) {
-                tracks.add(
-                    AudioTrack(
-                        id = cursor.getLong(idColumn),
-                        title = cursor.getString(titleColumn) ?: "Unknown",
-                        artist = cursor.getString(artistColumn) ?: "Unknown Artist",
-                        album = cursor.getString(albumColumn) ?: "Unknown Album",
-                        duration = cursor.getLong(durationColumn),
-                        data = cursor.getString(dataColumn) ?: ""
-                    )
+                page.add(columns.read(cursor))
+                if (page.size == pageSize) {
+                    emit(page)
+                    page = ArrayList(pageSize)
+                }
+            }
+
+            if (page.isNotEmpty()) {
+                emit(page)
+            }
+        }
+    }
+
+    // MediaStore generation, or -1 where the platform has none (before API 30)
+    fun currentGeneration(): Long {
+        return if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            MediaStore.getGeneration(context, MediaStore.VOLUME_EXTERNAL)
+        } else -1L
+    }
+
+    // Filter the next scan compiles from, so callers can tell whether a cached result still applies
+    val currentFilter: LibraryFilter get() = filter.value
+
+    /**
+     * Capture the current watermark. Take it before a scan so that rows changed
+     * while the scan runs are picked up again by the next delta.
+     */
+    fun currentWatermark(): SyncWatermark {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.R) {
+            return SyncWatermark(dateSeconds = System.currentTimeMillis() / 1000)
+        }
+        return SyncWatermark(
+            generation = MediaStore.getGeneration(context, MediaStore.VOLUME_EXTERNAL),
+            dateSeconds = System.currentTimeMillis() / 1000,
+            version = MediaStore.getVersion(context, MediaStore.VOLUME_EXTERNAL)
+        )
+    }
+
+    /**
+     * Query only the rows added, changed or removed since [watermark].
+     * [knownIds] are the ids the caller already holds, used to detect removals.
+     */
+    suspend fun scanChangesSince(
+        watermark: SyncWatermark,
+        knownIds: Set<Long>
+    ): AudioScanDelta = withContext(Dispatchers.IO) {
+        val nextWatermark = currentWatermark()
+        val selection = musicSelection
+
+        // Generations restart when MediaStore rebuilds its database, so one taken
+        // under another version says nothing about what changed: take every row
+        val rebuilt = watermark.version != nextWatermark.version
+        val changed = if (rebuilt) {
+            queryTracks(selection)
+        } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            queryTracks(
+                selection.and(
+                    "${MediaStore.Audio.Media.GENERATION_MODIFIED} > ?",
+                    watermark.generation.toString()
+                )
+            )
+        } else {
+            queryTracks(
+                selection.and(
+                    "${MediaStore.Audio.Media.DATE_ADDED} > ? OR ${MediaStore.Audio.Media.DATE_MODIFIED} > ?",
+                    watermark.dateSeconds.toString(),
+                    watermark.dateSeconds.toString()
                 )
+            )
+        }.toMutableList()
+
+        // Removals never show up in a "changed since" query, so diff the live id set.
+        // Rows a filter edit now excludes drop out here too.
+        val liveIds = queryIds(selection)
+        val removedIds = knownIds.filterTo(HashSet()) { it !in liveIds }
+
+        // Files copied in with an old mtime can slip past the date filter
+        val changedIds = changed.mapTo(HashSet()) { it.id }
+        val missingIds = liveIds.filter { it !in knownIds && it !in changedIds }
+        missingIds.chunked(MAX_IDS_PER_QUERY).forEach { chunk ->
+            changed += queryTracks(
+                MediaSelection("${MediaStore.Audio.Media._ID} IN (${chunk.joinToString(",")})")
+            )
+        }
+
+        AudioScanDelta(changed, removedIds, nextWatermark)
+    }
+
+    /**
+     * Emits whenever MediaStore reports a change under the audio table, or the
+     * library filter changes. Bursts are conflated; the collector is expected to debounce.
+     */
+    fun observeChanges(): Flow<Unit> = merge(mediaStoreChanges(), filter.drop(1).map { }).conflate()
+
+    private fun mediaStoreChanges(): Flow<Unit> = callbackFlow {
+        val observer = object : ContentObserver(null) {
+            override fun onChange(selfChange: Boolean) {
+                trySend(Unit)
+            }
+        }
+        context.contentResolver.registerContentObserver(
+            MediaStore.Audio.Media.EXTERNAL_CONTENT_URI,
+            true,
+            observer
+        )
+        awaitClose { context.contentResolver.unregisterContentObserver(observer) }
+    }
+
+    private fun queryTracks(selection: MediaSelection): List<AudioTrack> {
+        val tracks = mutableListOf<AudioTrack>()
+
+        context.contentResolver.query(
+            MediaStore.Audio.Media.EXTERNAL_CONTENT_URI,
+            projection,
+            selection.selection,
+            selection.selectionArgs,
+            sortOrder
+        )?.use { cursor ->
+            val columns = AudioColumns(cursor)
+            while (cursor.moveToNext()) {
+                tracks.add(columns.read(cursor))
             }
         }
-        
+
         return tracks
     }
+
+    private fun queryIds(selection: MediaSelection): Set<Long> {
+        val ids = HashSet<Long>()
+        context.contentResolver.query(
+            MediaStore.Audio.Media.EXTERNAL_CONTENT_URI,
+            arrayOf(MediaStore.Audio.Media._ID),
+            selection.selection,
+            selection.selectionArgs,
+            null
+        )?.use { cursor ->
+            val idColumn = cursor.getColumnIndexOrThrow(MediaStore.Audio.Media._ID)
+            while (cursor.moveToNext()) {
+                ids.add(cursor.getLong(idColumn))
+            }
+        }
+        return ids
+    }
+
+    // Column indexes resolved once per cursor
+    private class AudioColumns(cursor: Cursor) {
+        private val idColumn = cursor.getColumnIndexOrThrow(MediaStore.Audio.Media._ID)
+        private val titleColumn = cursor.getColumnIndexOrThrow(MediaStore.Audio.Media.TITLE)
+        private val artistColumn = cursor.getColumnIndexOrThrow(MediaStore.Audio.Media.ARTIST)
+        private val albumColumn = cursor.getColumnIndexOrThrow(MediaStore.Audio.Media.ALBUM)
+        private val durationColumn = cursor.getColumnIndexOrThrow(MediaStore.Audio.Media.DURATION)
+        private val dataColumn = cursor.getColumnIndexOrThrow(MediaStore.Audio.Media.DATA)
+
+        fun read(cursor: Cursor): AudioTrack = AudioTrack(
+            id = cursor.getLong(idColumn),
+            title = cursor.getString(titleColumn) ?: "Unknown",
+            artist = cursor.getString(artistColumn) ?: "Unknown Artist",
+            album = cursor.getString(albumColumn) ?: "Unknown Album",
+            duration = cursor.getLong(durationColumn),
+            data = cursor.getString(dataColumn) ?: ""
+        )
+    }
+
+    companion object {
+        private const val MAX_IDS_PER_QUERY = 500
+    }
 }
@@ -0,0 +1,10 @@
+package com.example.videoplayer.Domain.Models
+
+// domain/model/LibraryChange.kt
+data class LibraryChange(
+    val added: List<Track>,
+    val updated: List<Track>,
+    val removedIds: Set<Long>,
+    // The whole library after the change, the repository's own copy rather than a new list
+    val library: List<Track>
+)
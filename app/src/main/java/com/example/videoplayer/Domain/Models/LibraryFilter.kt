@@ -0,0 +1,79 @@
+package com.example.videoplayer.Domain.Models// domain/models/LibraryFilter.kt
+import android.os.Build
+import android.provider.MediaStore
+
+/**
+ * What the library should contain. Compiled into a MediaStore selection so
+ * excluded rows are dropped by the provider and never cross the binder.
+ */
+data class LibraryFilter(
+    val minDurationMs: Long = 0L,
+    val excludedFolders: Set<String> = emptySet(),   // absolute paths, no trailing slash
+    val includeRingtones: Boolean = false,           // ringtones, notification and alarm sounds
+    val includeRecordings: Boolean = false,          // voice notes, recognised from API 31
+    val volumes: Set<String> = emptySet()            // MediaStore volume names, empty for all (API 29+)
+) {
+
+    fun toAudioSelection(): MediaSelection {
+        var selection = MediaSelection("${MediaStore.Audio.Media.IS_MUSIC} != 0")
+        if (!includeRingtones) {
+            selection = selection
+                .and("${MediaStore.Audio.Media.IS_RINGTONE} = 0")
+                .and("${MediaStore.Audio.Media.IS_NOTIFICATION} = 0")
+                .and("${MediaStore.Audio.Media.IS_ALARM} = 0")
+        }
+        if (!includeRecordings && Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+            selection = selection.and("${MediaStore.Audio.Media.IS_RECORDING} = 0")
+        }
+        return withCommonClauses(selection, MediaStore.Audio.Media.DURATION)
+    }
+
+    fun toVideoSelection(): MediaSelection =
+        withCommonClauses(MediaSelection.ALL, MediaStore.Video.Media.DURATION)
+
+    private fun withCommonClauses(base: MediaSelection, durationColumn: String): MediaSelection {
+        var selection = base
+        if (minDurationMs > 0) {
+            selection = selection.and("$durationColumn >= ?", minDurationMs.toString())
+        }
+        for (folder in excludedFolders) {
+            selection = selection.and(
+                "${MediaStore.MediaColumns.DATA} NOT LIKE ? ESCAPE '\\'",
+                folderPattern(folder)
+            )
+        }
+        if (volumes.isNotEmpty() && Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            selection = selection.and(
+                "${MediaStore.MediaColumns.VOLUME_NAME} IN (${volumes.joinToString(",") { "?" }})",
+                *volumes.toTypedArray()
+            )
+        }
+        return selection
+    }
+
+    // Everything under the folder, with LIKE wildcards in the path taken literally
+    private fun folderPattern(folder: String): String {
+        val escaped = folder.trimEnd('/')
+            .replace("\\", "\\\\")
+            .replace("%", "\\%")
+            .replace("_", "\\_")
+        return "$escaped/%"
+    }
+}
+
+// A compiled WHERE clause and its bound arguments
+class MediaSelection(
+    val selection: String? = null,
+    private val args: List<String> = emptyList()
+) {
+    val selectionArgs: Array<String>? get() = if (args.isEmpty()) null else args.toTypedArray()
+
+    fun and(clause: String, vararg clauseArgs: String): MediaSelection = MediaSelection(
+        selection = if (selection == null) clause else "$selection AND ($clause)",
+        args = args + clauseArgs
+    )
+
+    companion object {
+        val ALL = MediaSelection()
+    }
+}
@@ -1,12 +1,24 @@
 package com.example.videoplayer.Domain.Models
 
+import android.content.ContentUris
+import android.provider.MediaStore
+
 // domain/model/Track.kt
 data class Track(
     val id: Long,
     val title: String,
     val artist: String,
     val album: String,
-    val duration: Long,
-    val uri: String,
-    val albumArtUri: String? = null
-)
+    val duration: Long
+) {
+    // Built on read, so a library of tracks does not hold two URI strings per row
+    val uri: String get() = ContentUris.withAppendedId(
+        MediaStore.Audio.Media.EXTERNAL_CONTENT_URI,
+        id
+    ).toString()
+
+    val albumArtUri: String? get() = ContentUris.withAppendedId(
+        android.net.Uri.parse("content://media/external/audio/albumart"),
+        id
+    ).toString()
+}
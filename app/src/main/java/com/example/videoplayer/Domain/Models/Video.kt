@@ -0,0 +1,121 @@
+package com.example.videoplayer.Domain.Models// data/local/Video.kt
+import android.content.Context
+import android.database.ContentObserver
+import android.database.Cursor
+import android.net.Uri
+import android.os.Build
+import android.provider.MediaStore
+import kotlinx.coroutines.channels.awaitClose
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.callbackFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.conflate
+import kotlinx.coroutines.flow.drop
+import kotlinx.coroutines.flow.flow
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.flow.merge
+
+data class Video(
+    val id: Long,
+    val uri: Uri,
+    val name: String,
+    val duration: Long,
+    val size: Long
+)
+
+class VideoScanner(
+    private val context: Context,
+    private val filter: StateFlow<LibraryFilter>
+) {
+
+    private val projection = arrayOf(
+        MediaStore.Video.Media._ID,
+        MediaStore.Video.Media.DISPLAY_NAME,
+        MediaStore.Video.Media.DURATION,
+        MediaStore.Video.Media.SIZE
+    )
+
+    private val sortOrder = "${MediaStore.Video.Media.DATE_ADDED} DESC"
+
+    /**
+     * All videos, emitted in pages of [pageSize] as the cursor window is read.
+     * Runs on the collector's dispatcher.
+     */
+    fun scanVideosPaged(pageSize: Int): Flow<List<Video>> = flow {
+        val selection = filter.value.toVideoSelection()
+        context.contentResolver.query(
+            MediaStore.Video.Media.EXTERNAL_CONTENT_URI,
+            projection,
+            selection.selection,
+            selection.selectionArgs,
+            sortOrder
+        )?.use { cursor ->
+            val columns = VideoColumns(cursor)
+            var page = ArrayList<Video>(pageSize)
+
+            while (cursor.moveToNext()) {
+                page.add(columns.read(cursor))
+                if (page.size == pageSize) {
+                    emit(page)
+                    page = ArrayList(pageSize)
+                }
+            }
+
+            if (page.isNotEmpty()) {
+                emit(page)
+            }
+        }
+    }
+
+    // MediaStore generation, or -1 where the platform has none (before API 30)
+    fun currentGeneration(): Long {
+        return if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            MediaStore.getGeneration(context, MediaStore.VOLUME_EXTERNAL)
+        } else -1L
+    }
+
+    // Filter the next scan compiles from, so callers can tell whether a cached result still applies
+    val currentFilter: LibraryFilter get() = filter.value
+
+    /**
+     * Emits whenever MediaStore reports a change under the video table, or the
+     * library filter changes.
+     */
+    fun observeChanges(): Flow<Unit> = merge(mediaStoreChanges(), filter.drop(1).map { }).conflate()
+
+    private fun mediaStoreChanges(): Flow<Unit> = callbackFlow {
+        val observer = object : ContentObserver(null) {
+            override fun onChange(selfChange: Boolean) {
+                trySend(Unit)
+            }
+        }
+        context.contentResolver.registerContentObserver(
+            MediaStore.Video.Media.EXTERNAL_CONTENT_URI,
+            true,
+            observer
+        )
+        awaitClose { context.contentResolver.unregisterContentObserver(observer) }
+    }
+
+    // Column indexes resolved once per cursor
+    private class VideoColumns(cursor: Cursor) {
+        private val idColumn = cursor.getColumnIndexOrThrow(MediaStore.Video.Media._ID)
+        private val nameColumn = cursor.getColumnIndexOrThrow(MediaStore.Video.Media.DISPLAY_NAME)
+        private val durationColumn = cursor.getColumnIndexOrThrow(MediaStore.Video.Media.DURATION)
+        private val sizeColumn = cursor.getColumnIndexOrThrow(MediaStore.Video.Media.SIZE)
+
+        fun read(cursor: Cursor): Video {
+            val id = cursor.getLong(idColumn)
+            return Video(
+                id = id,
+                uri = Uri.withAppendedPath(
+                    MediaStore.Video.Media.EXTERNAL_CONTENT_URI,
+                    id.toString()
+                ),
+                name = cursor.getString(nameColumn) ?: "",
+                duration = cursor.getLong(durationColumn),
+                size = cursor.getLong(sizeColumn)
+            )
+        }
+    }
+}
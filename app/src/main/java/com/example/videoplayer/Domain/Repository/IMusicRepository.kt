@@ -1,8 +1,32 @@
 package com.example.videoplayer.Domain.Repository// domain/repository/IMusicRepository.kt
+import com.example.videoplayer.Domain.Models.LibraryChange
 import com.example.videoplayer.Domain.Models.Track
 import kotlinx.coroutines.flow.Flow
 
 interface IMusicRepository {
     suspend fun getAllTracks(): Flow<List<Track>>
     suspend fun getTrackById(id: Long): Track?
+
+    // Indexed lookups over the loaded library, no full-list filtering
+    suspend fun getTracksByArtist(artist: String): List<Track>
+    suspend fun getTracksByAlbum(album: String): List<Track>
+    suspend fun getTracksInFolder(folder: String): List<Track>
+    suspend fun getArtists(): List<String>
+    suspend fun getAlbums(): List<String>
+    suspend fun getFolders(): List<String>
+
+    // Prefix and typo-tolerant match over title, artist and album
+    suspend fun searchTracks(query: String, limit: Int): List<Track>
+
+    // Emits the library in pages as it is read, each emission holds only new rows
+    fun getTrackPages(pageSize: Int = 200): Flow<List<Track>>
+
+    // Drop the cached library; the next collector runs exactly one new scan
+    fun invalidate()
+
+    // Invalidate and wait for the rescan
+    suspend fun refresh(): List<Track>
+
+    // Emits only the rows that changed in MediaStore since the last sync
+    fun observeLibraryChanges(): Flow<LibraryChange>
 }
@@ -0,0 +1,16 @@
+package com.example.videoplayer.Domain.Repository// domain/repository/IVideoRepository.kt
+import com.example.videoplayer.Domain.Models.Video
+import kotlinx.coroutines.flow.Flow
+
+interface IVideoRepository {
+    // Hot, shared list; grows while the first scan runs and updates on MediaStore changes
+    val videos: Flow<List<Video>>
+
+    fun getVideoById(id: Long): Video?
+
+    // Emits the library in pages as it is read, each emission holds only new rows
+    fun getVideoPages(): Flow<List<Video>>
+
+    // Rescan now instead of waiting for a change notification
+    fun refresh()
+}
@@ -1,7 +1,14 @@
 package com.example.videoplayer.Domain.UseCase// domain/usecase/MusicPlayerUseCase.kt
+import com.example.videoplayer.Domain.Models.LibraryChange
 import com.example.videoplayer.Domain.Models.Track
 import com.example.videoplayer.Domain.Repository.IMusicRepository
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.FlowPreview
 import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.debounce
+import kotlinx.coroutines.flow.distinctUntilChanged
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.flow.mapLatest
 
 
 
@@ -11,4 +18,38 @@ class MusicPlayerUseCase (
     suspend fun getAllTracks(): Flow<List<Track>> = repository.getAllTracks()
     
     suspend fun getTrackById(id: Long): Track? = repository.getTrackById(id)
+
+    suspend fun getTracksByArtist(artist: String): List<Track> = repository.getTracksByArtist(artist)
+
+    suspend fun getTracksByAlbum(album: String): List<Track> = repository.getTracksByAlbum(album)
+
+    suspend fun getTracksInFolder(folder: String): List<Track> = repository.getTracksInFolder(folder)
+
+    suspend fun getArtists(): List<String> = repository.getArtists()
+
+    suspend fun getAlbums(): List<String> = repository.getAlbums()
+
+    suspend fun getFolders(): List<String> = repository.getFolders()
+
+    // Debounced search; a new query cancels the one still running
+    @OptIn(FlowPreview::class, ExperimentalCoroutinesApi::class)
+    fun searchTracks(queries: Flow<String>): Flow<List<Track>> =
+        queries
+            .debounce(SEARCH_DEBOUNCE_MS)
+            .map { it.trim() }
+            .distinctUntilChanged()
+            .mapLatest { query ->
+                if (query.isEmpty()) emptyList() else repository.searchTracks(query, SEARCH_LIMIT)
+            }
+
+    fun getTrackPages(): Flow<List<Track>> = repository.getTrackPages()
+
+    fun observeLibraryChanges(): Flow<LibraryChange> = repository.observeLibraryChanges()
+
+    suspend fun refreshLibrary(): List<Track> = repository.refresh()
+
+    companion object {
+        private const val SEARCH_DEBOUNCE_MS = 150L
+        private const val SEARCH_LIMIT = 200
+    }
 }
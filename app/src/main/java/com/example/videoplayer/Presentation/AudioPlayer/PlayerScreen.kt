@@ -9,7 +9,13 @@ import androidx.compose.material3.*
 import androidx.compose.runtime.*
 import androidx.compose.ui.Alignment
 import androidx.compose.ui.Modifier
+import androidx.compose.foundation.gestures.detectHorizontalDragGestures
+import androidx.compose.foundation.gestures.detectTapGestures
 import androidx.compose.ui.draw.clip
+import androidx.compose.ui.draw.drawBehind
+import androidx.compose.ui.geometry.Offset
+import androidx.compose.ui.graphics.StrokeCap
+import androidx.compose.ui.input.pointer.pointerInput
 import androidx.compose.ui.graphics.Brush
 import androidx.compose.ui.graphics.Color
 import androidx.compose.ui.layout.ContentScale
@@ -21,6 +27,7 @@ import androidx.compose.ui.unit.dp
 import androidx.compose.ui.unit.sp
 import androidx.lifecycle.compose.collectAsStateWithLifecycle
 import coil.compose.rememberAsyncImagePainter
+import com.example.videoplayer.Presentation.AudioPlayer.Utils.TrackRecompositions
 import com.example.videoplayer.Presentation.VideoPlayer.MusicPlayerViewModel
 import com.example.videoplayer.R
 
@@ -30,7 +37,11 @@ fun PlayerScreen(
     viewModel: MusicPlayerViewModel,
     onNavigateToPlaylist: () -> Unit
 ) {
-    val playerState by viewModel.playerState.collectAsStateWithLifecycle()
+    TrackRecompositions("MusicPlayerScreen")
+    val currentItem by viewModel.currentItem.collectAsStateWithLifecycle()
+    val transport by viewModel.transport.collectAsStateWithLifecycle()
+    // Kept as State and read lazily by the progress bar, not here
+    val currentPosition = viewModel.currentPosition.collectAsStateWithLifecycle(initialValue = 0L)
     
     Box(
         modifier = Modifier
@@ -88,7 +99,7 @@ fun PlayerScreen(
             ) {
                 Image(
                     painter = rememberAsyncImagePainter(
-                        model = playerState.currentTrack?.albumArtUri,
+                        model = currentItem?.track?.albumArtUri,
                         placeholder = painterResource(R.drawable.ic_pre),
                         error = painterResource(R.drawable.ic_next)
                     ),
@@ -101,7 +112,7 @@ fun PlayerScreen(
             Spacer(modifier = Modifier.height(32.dp))
             
             // Track Info
-            playerState.currentTrack?.let { track ->
+            currentItem?.track?.let { track ->
                 Text(
                     text = track.title,
                     style = MaterialTheme.typography.headlineMedium,
@@ -124,16 +135,18 @@ fun PlayerScreen(
             
             // Progress Bar
             PlayerProgressBar(
-                currentPosition = playerState.currentPosition,
-                duration = playerState.duration,
-                onSeek = viewModel::seekTo
+                position = { currentPosition.value },
+                duration = transport.duration,
+                onSeek = viewModel::seekTo,
+                onScrub = viewModel::scrubTo,
+                onScrubEnd = viewModel::endScrub
             )
             
             Spacer(modifier = Modifier.height(32.dp))
             
             // Control Buttons
             PlayerControls(
-                isPlaying = playerState.isPlaying,
+                isPlaying = transport.isPlaying,
                 onPlayPause = viewModel::playPause,
                 onSkipNext = viewModel::skipToNext,
                 onSkipPrevious = viewModel::skipToPrevious
@@ -142,45 +155,75 @@ fun PlayerScreen(
     }
 }
 
+/**
+ * Position is passed as a lambda and only read while drawing and inside
+ * [PositionText], so a tick redraws the bar instead of recomposing the screen.
+ */
 @Composable
 fun PlayerProgressBar(
-    currentPosition: Long,
+    position: () -> Long,
     duration: Long,
-    onSeek: (Long) -> Unit
+    onSeek: (Long) -> Unit,
+    onScrub: (Long) -> Unit = onSeek,
+    onScrubEnd: (Long) -> Unit = onSeek
 ) {
+    TrackRecompositions("PlayerProgressBar")
     Column {
-        var sliderPosition by remember { mutableFloatStateOf(0f) }
-        var isUserInteracting by remember { mutableStateOf(false) }
+        // Fraction under the finger while dragging, null otherwise
+        var dragFraction by remember { mutableStateOf<Float?>(null) }
+        val inactiveColor = MaterialTheme.colorScheme.primary.copy(alpha = 0.24f)
+        val activeColor = MaterialTheme.colorScheme.primary
         
-        LaunchedEffect(currentPosition) {
-            if (!isUserInteracting) {
-                sliderPosition = if (duration > 0) {
-                    currentPosition.toFloat() / duration.toFloat()
-                } else 0f
-            }
-        }
-        
-        Slider(
-            value = sliderPosition,
-            onValueChange = { 
-                sliderPosition = it
-                isUserInteracting = true
-            },
-            onValueChangeFinished = {
-                onSeek((sliderPosition * duration).toLong())
-                isUserInteracting = false
-            },
-            modifier = Modifier.fillMaxWidth()
+        Box(
+            modifier = Modifier
+                .fillMaxWidth()
+                .height(32.dp)
+                .pointerInput(duration) {
+                    detectTapGestures { offset ->
+                        if (duration > 0) {
+                            onSeek(((offset.x / size.width).coerceIn(0f, 1f) * duration).toLong())
+                        }
+                    }
+                }
+                .pointerInput(duration) {
+                    detectHorizontalDragGestures(
+                        onDragStart = { offset ->
+                            val fraction = (offset.x / size.width).coerceIn(0f, 1f)
+                            dragFraction = fraction
+                            onScrub((fraction * duration).toLong())
+                        },
+                        onDragEnd = {
+                            dragFraction?.let { onScrubEnd((it * duration).toLong()) }
+                            dragFraction = null
+                        },
+                        onDragCancel = {
+                            dragFraction?.let { onScrubEnd((it * duration).toLong()) }
+                            dragFraction = null
+                        },
+                        onHorizontalDrag = { change, _ ->
+                            val fraction = (change.position.x / size.width).coerceIn(0f, 1f)
+                            dragFraction = fraction
+                            onScrub((fraction * duration).toLong())
+                        }
+                    )
+                }
+                .drawBehind {
+                    val fraction = dragFraction
+                        ?: if (duration > 0) (position().toFloat() / duration).coerceIn(0f, 1f) else 0f
+                    val centerY = size.height / 2
+                    val stroke = 4.dp.toPx()
+                    drawLine(inactiveColor, Offset(0f, centerY), Offset(size.width, centerY), stroke, StrokeCap.Round)
+                    drawLine(activeColor, Offset(0f, centerY), Offset(size.width * fraction, centerY), stroke, StrokeCap.Round)
+                    drawCircle(activeColor, radius = 8.dp.toPx(), center = Offset(size.width * fraction, centerY))
+                }
         )
         
         Row(
             modifier = Modifier.fillMaxWidth(),
             horizontalArrangement = Arrangement.SpaceBetween
         ) {
-            Text(
-                text = formatTime(currentPosition),
-                style = MaterialTheme.typography.bodySmall,
-                color = MaterialTheme.colorScheme.onSurface.copy(alpha = 0.7f)
+            PositionText(
+                position = { dragFraction?.let { (it * duration).toLong() } ?: position() }
             )
             Text(
                 text = formatTime(duration),
@@ -191,6 +234,19 @@ fun PlayerProgressBar(
     }
 }
 
+// Recomposes once a second rather than once a frame
+@Composable
+private fun PositionText(position: () -> Long) {
+    TrackRecompositions("PositionText")
+    val currentPosition by rememberUpdatedState(position)
+    val text by remember { derivedStateOf { formatTime(currentPosition()) } }
+    Text(
+        text = text,
+        style = MaterialTheme.typography.bodySmall,
+        color = MaterialTheme.colorScheme.onSurface.copy(alpha = 0.7f)
+    )
+}
+
 @Composable
 fun PlayerControls(
     isPlaying: Boolean,
@@ -198,6 +254,7 @@ fun PlayerControls(
     onSkipNext: () -> Unit,
     onSkipPrevious: () -> Unit
 ) {
+    TrackRecompositions("PlayerControls")
     Row(
         horizontalArrangement = Arrangement.spacedBy(24.dp),
         verticalAlignment = Alignment.CenterVertically
@@ -0,0 +1,93 @@
+package com.example.videoplayer.Presentation.AudioPlayer.Utils
+
+import android.os.SystemClock
+import androidx.compose.runtime.MonotonicFrameClock
+import androidx.compose.runtime.withFrameMillis
+import androidx.media3.common.C
+import androidx.media3.common.Player
+import kotlinx.coroutines.channels.awaitClose
+import kotlinx.coroutines.currentCoroutineContext
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.callbackFlow
+import kotlinx.coroutines.flow.channelFlow
+import kotlinx.coroutines.flow.collectLatest
+import kotlinx.coroutines.flow.conflate
+
+// Last position the player reported, and enough to extrapolate from it
+data class PositionAnchor(
+    val positionMs: Long,
+    val realtimeMs: Long,
+    val speed: Float,
+    val isPlaying: Boolean,
+    val durationMs: Long
+) {
+    fun positionAt(nowMs: Long): Long {
+        if (!isPlaying) return positionMs
+        val position = positionMs + ((nowMs - realtimeMs) * speed).toLong()
+        return if (durationMs == C.TIME_UNSET) position.coerceAtLeast(0L)
+        else position.coerceIn(0L, durationMs.coerceAtLeast(0L))
+    }
+}
+
+/**
+ * Playback position of [player], ticking once per frame while it plays and
+ * silent while paused. Nothing runs unless the flow is collected, so collect it
+ * from the UI (collectAsStateWithLifecycle) rather than into ViewModel state:
+ * there it stops in the background and follows the Compose frame clock.
+ *
+ * Must be collected on the player's application thread.
+ */
+fun playerPositionFlow(player: Player): Flow<Long> = channelFlow {
+    player.anchorUpdates().collectLatest { anchor ->
+        send(anchor.positionMs)
+        // Paused, suspend until the player reports something new
+        if (!anchor.isPlaying) return@collectLatest
+        while (true) {
+            awaitFrame()
+            send(anchor.positionAt(SystemClock.elapsedRealtime()))
+        }
+    }
+}.conflate()
+
+// A fresh anchor whenever the position stops following the last one
+private fun Player.anchorUpdates(): Flow<PositionAnchor> = callbackFlow {
+    val player = this@anchorUpdates
+    val listener = object : Player.Listener {
+        override fun onEvents(player: Player, events: Player.Events) {
+            if (events.containsAny(
+                    Player.EVENT_IS_PLAYING_CHANGED,
+                    Player.EVENT_POSITION_DISCONTINUITY,
+                    Player.EVENT_PLAYBACK_PARAMETERS_CHANGED,
+                    Player.EVENT_PLAYBACK_STATE_CHANGED,
+                    Player.EVENT_MEDIA_ITEM_TRANSITION,
+                    Player.EVENT_TIMELINE_CHANGED
+                )
+            ) {
+                trySend(player.captureAnchor())
+            }
+        }
+    }
+    trySend(player.captureAnchor())
+    player.addListener(listener)
+    awaitClose { player.removeListener(listener) }
+}.conflate()
+
+private fun Player.captureAnchor() = PositionAnchor(
+    positionMs = currentPosition.coerceAtLeast(0L),
+    realtimeMs = SystemClock.elapsedRealtime(),
+    speed = playbackParameters.speed,
+    isPlaying = isPlaying,
+    durationMs = duration
+)
+
+// Align with the next frame when collected from composition, fall back to a frame-length delay elsewhere
+private suspend fun awaitFrame() {
+    if (currentCoroutineContext()[MonotonicFrameClock] != null) {
+        withFrameMillis { }
+    } else {
+        delay(FALLBACK_FRAME_MS)
+    }
+}
+
+private const val FALLBACK_FRAME_MS = 16L
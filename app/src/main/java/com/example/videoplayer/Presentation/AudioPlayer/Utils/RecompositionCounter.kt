@@ -0,0 +1,54 @@
+package com.example.videoplayer.Presentation.AudioPlayer.Utils
+
+import android.util.Log
+import androidx.compose.runtime.Composable
+import androidx.compose.runtime.NonRestartableComposable
+import androidx.compose.runtime.SideEffect
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Counts compositions per tagged scope, to check which parts of a screen a
+ * state change actually reaches (e.g. that a position tick only recomposes
+ * the progress bar). Off by default; flip [enabled] from a debug build or a test.
+ */
+object RecompositionCounter {
+
+    @Volatile
+    var enabled = false
+
+    // Also log every composition, noisy
+    @Volatile
+    var logEachComposition = false
+
+    private val counts = ConcurrentHashMap<String, AtomicInteger>()
+
+    fun record(tag: String) {
+        val count = counts.getOrPut(tag) { AtomicInteger() }.incrementAndGet()
+        if (logEachComposition) {
+            Log.d(RECOMPOSITION_LOGGER, "$tag composed $count times")
+        }
+    }
+
+    fun count(tag: String): Int = counts[tag]?.get() ?: 0
+
+    fun snapshot(): Map<String, Int> = counts.mapValues { it.value.get() }
+
+    fun reset() {
+        counts.clear()
+    }
+
+    private const val RECOMPOSITION_LOGGER = "RECOMPOSITION"
+}
+
+/**
+ * Call at the top of the scope to count. Non-restartable so it runs whenever
+ * the enclosing scope does instead of being skipped on its own.
+ */
+@Composable
+@NonRestartableComposable
+fun TrackRecompositions(tag: String) {
+    if (RecompositionCounter.enabled) {
+        SideEffect { RecompositionCounter.record(tag) }
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.videoplayer.Presentation.AudioPlayer.Utils
+
+import androidx.media3.common.C
+import androidx.media3.common.Player
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.launch
+
+/**
+ * Scrubbing mode for drag and repeated double-tap seeks. While scrubbing the
+ * player seeks to the nearest sync sample and at most once per
+ * [SEEK_INTERVAL_MS], always to the latest target; when the gesture ends a
+ * single exact seek lands on the final position.
+ *
+ * [setSyncSeeks] switches the player between CLOSEST_SYNC and exact seeks.
+ * Use from the main thread.
+ */
+class SeekScrubber(
+    private val scope: CoroutineScope,
+    private val player: () -> Player?,
+    private val setSyncSeeks: (Boolean) -> Unit
+) {
+
+    var isScrubbing = false
+        private set
+
+    // Latest requested position; only the newest survives between seeks
+    private val target = MutableStateFlow<Long?>(null)
+    private var settleJob: Job? = null
+
+    init {
+        scope.launch {
+            target.collect { position ->
+                if (position != null && isScrubbing) {
+                    player()?.seekTo(position)
+                    delay(SEEK_INTERVAL_MS)
+                }
+            }
+        }
+    }
+
+    fun scrubTo(positionMs: Long) {
+        if (!isScrubbing) {
+            isScrubbing = true
+            setSyncSeeks(true)
+        }
+        target.value = positionMs.coerceAtLeast(0L)
+    }
+
+    // Finish the gesture with one exact seek, to [finalPositionMs] or the last scrub target
+    fun end(finalPositionMs: Long? = target.value) {
+        if (!isScrubbing) return
+        isScrubbing = false
+        settleJob?.cancel()
+        target.value = null
+        setSyncSeeks(false)
+        finalPositionMs?.let { player()?.seekTo(it) }
+    }
+
+    /**
+     * Relative jump, e.g. a double tap. Taps in quick succession add up from
+     * the previous target and settle with an exact seek once they stop.
+     */
+    fun nudge(deltaMs: Long) {
+        val player = player() ?: return
+        val base = target.value ?: player.currentPosition
+        val duration = player.duration
+        var position = (base + deltaMs).coerceAtLeast(0L)
+        if (duration != C.TIME_UNSET) {
+            position = position.coerceAtMost(duration)
+        }
+        scrubTo(position)
+
+        settleJob?.cancel()
+        settleJob = scope.launch {
+            delay(NUDGE_SETTLE_MS)
+            end()
+        }
+    }
+
+    companion object {
+        private const val SEEK_INTERVAL_MS = 80L
+        private const val NUDGE_SETTLE_MS = 500L
+    }
+}
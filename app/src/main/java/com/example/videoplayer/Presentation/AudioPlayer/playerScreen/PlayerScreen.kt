@@ -8,9 +8,11 @@ import androidx.compose.animation.AnimatedVisibility
 import androidx.compose.animation.core.tween
 import androidx.compose.animation.fadeIn
 import androidx.compose.animation.fadeOut
+import androidx.compose.foundation.Canvas
 import androidx.compose.foundation.background
 import androidx.compose.foundation.clickable
 import androidx.compose.foundation.gestures.detectDragGestures
+import androidx.compose.foundation.gestures.detectHorizontalDragGestures
 import androidx.compose.foundation.gestures.detectTapGestures
 import androidx.compose.foundation.layout.Arrangement
 import androidx.compose.foundation.layout.Box
@@ -39,33 +41,51 @@ import androidx.compose.runtime.Composable
 import androidx.compose.runtime.DisposableEffect
 import androidx.compose.runtime.LaunchedEffect
 import androidx.compose.runtime.collectAsState
+import androidx.compose.runtime.derivedStateOf
+import androidx.compose.runtime.rememberUpdatedState
 import androidx.compose.runtime.getValue
+import androidx.compose.runtime.mutableIntStateOf
 import androidx.compose.runtime.mutableStateOf
 import androidx.compose.runtime.remember
 import androidx.compose.runtime.setValue
 import androidx.compose.ui.Alignment
 import androidx.compose.ui.Modifier
 import androidx.compose.ui.composed
+import androidx.compose.ui.draw.drawBehind
+import androidx.compose.ui.geometry.Offset
+import androidx.compose.ui.geometry.Size
 import androidx.compose.ui.graphics.Brush
 import androidx.compose.ui.graphics.Color
+import androidx.compose.ui.graphics.asImageBitmap
+import androidx.compose.ui.graphics.drawscope.Stroke
 import androidx.compose.ui.input.pointer.pointerInput
+import androidx.compose.ui.layout.layout
 import androidx.compose.ui.platform.LocalContext
 import androidx.compose.ui.res.painterResource
+import androidx.compose.ui.unit.Constraints
+import androidx.compose.ui.unit.IntOffset
+import androidx.compose.ui.unit.IntSize
 import androidx.compose.ui.unit.dp
 import androidx.compose.ui.unit.sp
 import androidx.compose.ui.viewinterop.AndroidView
 import androidx.media3.common.MediaItem
 import androidx.media3.exoplayer.ExoPlayer
 import androidx.media3.ui.PlayerView
+import androidx.lifecycle.compose.collectAsStateWithLifecycle
 import androidx.navigation.NavHostController
+import com.example.videoplayer.Data.Thumbnails.ThumbnailSprite
+import com.example.videoplayer.Presentation.AudioPlayer.Utils.TrackRecompositions
 import com.example.videoplayer.Presentation.AudioPlayer.videosScreen.ViewViewModel
 import com.example.videoplayer.R
 import kotlinx.coroutines.delay
 import org.koin.androidx.compose.koinViewModel
+import org.koin.compose.koinInject
+import kotlin.math.roundToInt
 
 
 @Composable
 fun PlayerScreen(navController: NavHostController, mediaViewModel: ViewViewModel) {
+    TrackRecompositions("VideoPlayerScreen")
     val indexedValue = mediaViewModel.currentVideoIndex.value
     val videoList by mediaViewModel.videos.collectAsState(initial = emptyList())
 
@@ -73,6 +93,9 @@ fun PlayerScreen(navController: NavHostController, mediaViewModel: ViewViewModel
 
     val viewModel = koinViewModel<VideoPlayerViewModel>()
     val videoState by viewModel.videoState.collectAsState()
+    // Kept as State and read lazily by the overlay's progress bar and time text, not here
+    val currentPosition = viewModel.currentPosition.collectAsStateWithLifecycle(initialValue = 0L)
+    val thumbnailSprite by viewModel.thumbnailSprite.collectAsStateWithLifecycle()
 
     // State for controlling overlay visibility
     var showControls by remember { mutableStateOf(true) }
@@ -90,7 +113,10 @@ fun PlayerScreen(navController: NavHostController, mediaViewModel: ViewViewModel
         showControls = true
     }
 
-    viewModel.setVideoPlaylist(videoList)
+    // Queue setup is a side effect, run it when the list or start index changes, not per recomposition
+    LaunchedEffect(videoList, indexedValue) {
+        viewModel.setVideoPlaylist(videoList, indexedValue)
+    }
 
     if (videoState.isLandscape) {
         ActivityInfo.SCREEN_ORIENTATION_LANDSCAPE
@@ -136,11 +162,13 @@ fun PlayerScreen(navController: NavHostController, mediaViewModel: ViewViewModel
             VideoView(
                 uri = videoUri,
                 isPlaying = videoState.isPlaying,
-                currentPosition = videoState.currentPosition,
                 brightness = videoState.brightness,
                 volume = videoState.volume,
                 onPlayerReady = { player ->
                     viewModel.setPlayer(player)
+                },
+                onPlayerReleased = { player ->
+                    viewModel.clearPlayer(player)
                 }
             )
         }
@@ -152,7 +180,7 @@ fun PlayerScreen(navController: NavHostController, mediaViewModel: ViewViewModel
             exit = fadeOut(animationSpec = tween(300))
         ) {
             ControlOverlays(
-                currentPosition = videoState.currentPosition,
+                currentPosition = { currentPosition.value },
                 name = videoState.currentVideoTitle,
                 totalDuration = videoState.duration,
                 isPlaying = videoState.isPlaying,
@@ -175,36 +203,90 @@ fun PlayerScreen(navController: NavHostController, mediaViewModel: ViewViewModel
                 onPlayPre = {
                     viewModel.playPreviousVideo()
                     resetControlTimer()
-                }
+                },
+                onScrub = { position ->
+                    viewModel.scrubTo(position)
+                    resetControlTimer()
+                },
+                onScrubEnd = { position ->
+                    viewModel.endScrub(position)
+                    resetControlTimer()
+                },
+                thumbnails = thumbnailSprite
             )
         }
     }
 }
 
-// Modified VideoView - no changes needed
+// Plays on a pooled player; the caller queues media through onPlayerReady
 @Composable
 fun VideoView(
     uri: Uri,
     isPlaying: Boolean,
-    currentPosition: Long,
     brightness: Float,
     volume: Float,
-    onPlayerReady: (ExoPlayer) -> Unit = {}
+    onPlayerReady: (ExoPlayer) -> Unit = {},
+    onPlayerReleased: (ExoPlayer) -> Unit = {}
 ) {
-    val context = LocalContext.current
-
-    val exoPlayer = remember(uri) {
-        ExoPlayer.Builder(context)
-            .build()
-            .apply {
-                val mediaItem = MediaItem.fromUri(uri)
-                setMediaItem(mediaItem)
-                prepare()
-                onPlayerReady(this)
+    val playerPool = koinInject<VideoPlayerPool>()
+    val currentOnPlayerReleased by rememberUpdatedState(onPlayerReleased)
+
+    // One lease for as long as the view is shown, media changes reuse the same player.
+    // Leased again if the pool takes the player back for another screen. Acquired in an
+    // effect, so a composition that is abandoned never takes a player out of the pool.
+    var revocations by remember { mutableIntStateOf(0) }
+    var lease by remember { mutableStateOf<VideoPlayerPool.Lease?>(null) }
+
+    DisposableEffect(revocations) {
+        val acquired = playerPool.acquire()
+        lease = acquired
+        // The player now belongs to another screen: stop driving it right away, then lease another
+        acquired.doOnRevoke {
+            currentOnPlayerReleased(acquired.player)
+            revocations++
+        }
+        onDispose {
+            if (!acquired.isRevoked) {
+                currentOnPlayerReleased(acquired.player)
+                playerPool.release(acquired)
             }
+        }
     }
 
-    LaunchedEffect(isPlaying) {
+    Box(
+        modifier = Modifier
+            .fillMaxSize()
+            .background(Color.Black)
+    ) {
+        lease?.let { current ->
+            LeasedVideoView(current, uri, isPlaying, brightness, volume, onPlayerReady)
+        }
+    }
+}
+
+@Composable
+private fun LeasedVideoView(
+    lease: VideoPlayerPool.Lease,
+    uri: Uri,
+    isPlaying: Boolean,
+    brightness: Float,
+    volume: Float,
+    onPlayerReady: (ExoPlayer) -> Unit
+) {
+    val context = LocalContext.current
+    val exoPlayer = lease.player
+
+    LaunchedEffect(exoPlayer) {
+        onPlayerReady(exoPlayer)
+        // Nothing queued by the caller, play the uri on its own
+        if (exoPlayer.mediaItemCount == 0) {
+            exoPlayer.setMediaItem(MediaItem.fromUri(uri))
+            exoPlayer.prepare()
+        }
+    }
+
+    LaunchedEffect(exoPlayer, isPlaying) {
+        if (lease.isRevoked) return@LaunchedEffect
         if (isPlaying) {
             exoPlayer.play()
         } else {
@@ -212,15 +294,9 @@ fun VideoView(
         }
     }
 
-    LaunchedEffect(volume) {
-        exoPlayer.volume = volume
-    }
-
-    LaunchedEffect(currentPosition) {
-        val currentPlayerPosition = exoPlayer.currentPosition
-        val positionDiff = kotlin.math.abs(currentPlayerPosition - currentPosition)
-        if (positionDiff > 1000) {
-            exoPlayer.seekTo(currentPosition)
+    LaunchedEffect(exoPlayer, volume) {
+        if (!lease.isRevoked) {
+            exoPlayer.volume = volume
         }
     }
 
@@ -231,38 +307,26 @@ fun VideoView(
         }
     }
 
-    DisposableEffect(exoPlayer) {
-        onDispose {
-            exoPlayer.release()
-        }
-    }
-
-    Box(
-        modifier = Modifier
-            .fillMaxSize()
-            .background(Color.Black)
-    ) {
-        AndroidView(
-            modifier = Modifier.fillMaxSize(),
-            factory = { context ->
-                PlayerView(context).apply {
-                    player = exoPlayer
-                    useController = false
-                }
-            },
-            update = { playerView ->
-                if (playerView.player != exoPlayer) {
-                    playerView.player = exoPlayer
-                }
+    AndroidView(
+        modifier = Modifier.fillMaxSize(),
+        factory = { context ->
+            PlayerView(context).apply {
+                player = exoPlayer
+                useController = false
             }
-        )
-    }
+        },
+        update = { playerView ->
+            if (playerView.player != exoPlayer) {
+                playerView.player = exoPlayer
+            }
+        }
+    )
 }
 
 // Modified ControlOverlays - no changes needed for functionality
 @Composable
 fun ControlOverlays(
-    currentPosition: Long,
+    currentPosition: () -> Long,
     totalDuration: Long,
     name: String,
     isPlaying: Boolean,
@@ -270,9 +334,12 @@ fun ControlOverlays(
     onFullscreenToggle: () -> Unit,
     onSettingsOpen: () -> Unit,
     onPlayNext: () -> Unit,
-    onPlayPre: () -> Unit
+    onPlayPre: () -> Unit,
+    onScrub: (Long) -> Unit = {},
+    onScrubEnd: (Long) -> Unit = {},
+    thumbnails: ThumbnailSprite? = null
 ) {
-    val currentTimeText = formatTime(currentPosition)
+    TrackRecompositions("ControlOverlays")
     val totalTimeText = formatTime(totalDuration)
     val context = LocalContext.current
     val activity = context as? Activity
@@ -350,20 +417,27 @@ fun ControlOverlays(
                 horizontalArrangement = Arrangement.SpaceBetween,
                 verticalAlignment = Alignment.CenterVertically
             ) {
-                Text(
-                    text = currentTimeText,
-                    color = Color.White,
-                    fontSize = 14.sp
-                )
+                PositionText(position = currentPosition)
 
                 ProgressBar(
                     modifier = Modifier
                         .weight(1f)
-                        .padding(horizontal = 8.dp, vertical = 16.dp),
-                    progress = if (totalDuration > 0) {
-                        currentPosition.toFloat() / totalDuration.toFloat()
-                    } else 0f,
-                    color = Color.White
+                        .padding(horizontal = 8.dp, vertical = 6.dp),
+                    progress = {
+                        if (totalDuration > 0) {
+                            currentPosition().toFloat() / totalDuration.toFloat()
+                        } else 0f
+                    },
+                    color = Color.White,
+                    // Nothing to seek in until the player reports a duration
+                    onScrub = { fraction ->
+                        if (totalDuration > 0) onScrub((fraction * totalDuration).toLong())
+                    },
+                    onScrubEnd = { fraction ->
+                        if (totalDuration > 0) onScrubEnd((fraction * totalDuration).toLong())
+                    },
+                    preview = thumbnails,
+                    durationMs = totalDuration
                 )
 
                 Text(
@@ -479,27 +553,130 @@ private fun Modifier.dragGesture(
     }
 }
 
+// Progress is read in the draw phase, so position ticks only redraw the bar.
+// Dragging reports fractions through onScrub and the final one through onScrubEnd,
+// and shows the [preview] tile for the dragged position above the bar.
 @Composable
 fun ProgressBar(
     modifier: Modifier = Modifier,
-    progress: Float,
-    color: Color
+    progress: () -> Float,
+    color: Color,
+    onScrub: (Float) -> Unit = {},
+    onScrubEnd: (Float) -> Unit = {},
+    preview: ThumbnailSprite? = null,
+    durationMs: Long = 0L
 ) {
+    TrackRecompositions("ProgressBar")
+    // Fraction under the finger while dragging, null otherwise
+    var dragFraction by remember { mutableStateOf<Float?>(null) }
+    val isDragging by remember { derivedStateOf { dragFraction != null } }
+    // The gesture outlives recompositions; read the latest callbacks, which close over the current duration
+    val currentOnScrub by rememberUpdatedState(onScrub)
+    val currentOnScrubEnd by rememberUpdatedState(onScrubEnd)
+
     Box(
         modifier = modifier
             .fillMaxWidth()
-            .height(4.dp)
-            .background(color.copy(alpha = 0.3f))
+            .height(24.dp)
+            .pointerInput(Unit) {
+                detectHorizontalDragGestures(
+                    onDragStart = { offset ->
+                        val fraction = (offset.x / size.width).coerceIn(0f, 1f)
+                        dragFraction = fraction
+                        currentOnScrub(fraction)
+                    },
+                    onDragEnd = {
+                        dragFraction?.let(currentOnScrubEnd)
+                        dragFraction = null
+                    },
+                    onDragCancel = {
+                        dragFraction?.let(currentOnScrubEnd)
+                        dragFraction = null
+                    },
+                    onHorizontalDrag = { change, _ ->
+                        val fraction = (change.position.x / size.width).coerceIn(0f, 1f)
+                        dragFraction = fraction
+                        currentOnScrub(fraction)
+                    }
+                )
+            }
+            .drawBehind {
+                val barHeight = 4.dp.toPx()
+                val top = (size.height - barHeight) / 2
+                val fraction = (dragFraction ?: progress()).coerceIn(0f, 1f)
+                drawRect(
+                    color = color.copy(alpha = 0.3f),
+                    topLeft = Offset(0f, top),
+                    size = Size(size.width, barHeight)
+                )
+                drawRect(
+                    color = color,
+                    topLeft = Offset(0f, top),
+                    size = Size(size.width * fraction, barHeight)
+                )
+            }
     ) {
-        Box(
-            modifier = Modifier
-                .fillMaxWidth(progress.coerceIn(0f, 1f))
-                .fillMaxHeight()
-                .background(color)
+        if (preview != null && isDragging) {
+            SeekPreview(
+                sprite = preview,
+                fraction = { dragFraction ?: 0f },
+                durationMs = durationMs
+            )
+        }
+    }
+}
+
+// Floats above the bar without taking space in it; follows the finger in the
+// layout phase and picks its tile in the draw phase, so dragging never recomposes it
+@Composable
+private fun SeekPreview(
+    sprite: ThumbnailSprite,
+    fraction: () -> Float,
+    durationMs: Long
+) {
+    val image = remember(sprite) { sprite.bitmap.asImageBitmap() }
+    val width = 160.dp
+    val height = width * sprite.tileHeight / sprite.tileWidth
+
+    Canvas(
+        modifier = Modifier.layout { measurable, constraints ->
+            val placeable = measurable.measure(
+                Constraints.fixed(width.roundToPx(), height.roundToPx())
+            )
+            layout(constraints.maxWidth, constraints.minHeight) {
+                val center = (fraction() * constraints.maxWidth).toInt()
+                val x = (center - placeable.width / 2)
+                    .coerceIn(0, (constraints.maxWidth - placeable.width).coerceAtLeast(0))
+                placeable.place(x, -placeable.height - 8.dp.roundToPx())
+            }
+        }
+    ) {
+        val tile = sprite.layout.tileAt((fraction() * durationMs).toLong())
+        val column = tile % sprite.layout.columns
+        val row = tile / sprite.layout.columns
+        drawImage(
+            image = image,
+            srcOffset = IntOffset(column * sprite.tileWidth, row * sprite.tileHeight),
+            srcSize = IntSize(sprite.tileWidth, sprite.tileHeight),
+            dstSize = IntSize(size.width.roundToInt(), size.height.roundToInt())
         )
+        drawRect(color = Color.White, style = Stroke(width = 1.dp.toPx()))
     }
 }
 
+// Recomposes once a second rather than once a frame
+@Composable
+private fun PositionText(position: () -> Long) {
+    TrackRecompositions("PositionText")
+    val currentPosition by rememberUpdatedState(position)
+    val text by remember { derivedStateOf { formatTime(currentPosition()) } }
+    Text(
+        text = text,
+        color = Color.White,
+        fontSize = 14.sp
+    )
+}
+
 private fun formatTime(timeMs: Long): String {
     val totalSeconds = (timeMs / 1000).toInt()
     val seconds = totalSeconds % 60
@@ -8,19 +8,30 @@ import android.util.Log
 import androidx.lifecycle.SavedStateHandle
 import androidx.lifecycle.ViewModel
 import androidx.lifecycle.viewModelScope
+import androidx.annotation.OptIn
+import androidx.media3.common.C
 import androidx.media3.common.MediaItem
 import androidx.media3.common.Player
+import androidx.media3.common.util.UnstableApi
+import androidx.media3.common.util.Util
 import androidx.media3.exoplayer.ExoPlayer
+import androidx.media3.exoplayer.SeekParameters
+import com.example.videoplayer.Data.Thumbnails.ThumbnailSprite
+import com.example.videoplayer.Data.Thumbnails.TrickPlayThumbnails
+import com.example.videoplayer.Presentation.AudioPlayer.Utils.SeekScrubber
 import com.example.videoplayer.Presentation.AudioPlayer.Utils.VideoItem
-import com.example.videoplayer.Presentation.AudioPlayer.videosScreen.Video
-import kotlinx.coroutines.Job
-import kotlinx.coroutines.delay
+import com.example.videoplayer.Presentation.AudioPlayer.Utils.playerPositionFlow
+import com.example.videoplayer.Domain.Models.Video
+import com.example.videoplayer.Presentation.VideoPlayer.WindowedQueue
+import kotlinx.coroutines.ExperimentalCoroutinesApi
 import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.SharingStarted
 import kotlinx.coroutines.flow.StateFlow
 import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.flow.flatMapLatest
 import kotlinx.coroutines.flow.flow
+import kotlinx.coroutines.flow.flowOf
 import kotlinx.coroutines.flow.map
 import kotlinx.coroutines.flow.stateIn
 import kotlinx.coroutines.flow.update
@@ -28,9 +39,22 @@ import kotlinx.coroutines.launch
 import java.util.Locale
 
 
-class VideoPlayerViewModel : ViewModel() {
+// How much of the playlist around the current video is kept prepared
+data class VideoPreloadSettings(
+    val behind: Int = 1,
+    val ahead: Int = 1,
+    val preloadDurationMs: Long = 5_000L  // buffered ahead of time per upcoming video, bounds preload memory
+)
+
+class VideoPlayerViewModel(
+    private val thumbnails: TrickPlayThumbnails,
+    private val preloadSettings: VideoPreloadSettings = VideoPreloadSettings()
+) : ViewModel() {
+
+    private val exoPlayer: ExoPlayer? get() = _player.value
 
-    private var exoPlayer: ExoPlayer? = null
+    // Neighbouring videos live in the player's playlist so next/previous is a seek, not a fresh prepare
+    private var queue: WindowedQueue<Video>? = null
 
     // Video playlist management
     private var currentVideoIndex = 0
@@ -39,7 +63,6 @@ class VideoPlayerViewModel : ViewModel() {
     private val _videoState = MutableStateFlow(
         VideoState(
             isPlaying = false,
-            currentPosition = 0L,
             duration = 0L,
             brightness = 0.5f,
             volume = 1.0f,
@@ -52,32 +75,117 @@ class VideoPlayerViewModel : ViewModel() {
     )
     val videoState: StateFlow<VideoState> = _videoState.asStateFlow()
 
-    // Position update job
-    private var positionUpdateJob: Job? = null
+    // Player currently driven, position ticks follow it
+    private val _player = MutableStateFlow<ExoPlayer?>(null)
 
-    fun setPlayer(player: ExoPlayer) {
-        exoPlayer = player
-        startPositionUpdates()
+    // Ticks per frame while playing and only while the UI collects it, kept out of videoState
+    @kotlin.OptIn(ExperimentalCoroutinesApi::class)
+    val currentPosition: Flow<Long> = _player.flatMapLatest { player ->
+        if (player == null) flowOf(0L) else playerPositionFlow(player)
+    }
+
+    private val _currentVideo = MutableStateFlow<Video?>(null)
 
-        // Update duration when media is ready
-        player.addListener(object : Player.Listener {
-            override fun onPlaybackStateChanged(playbackState: Int) {
-                if (playbackState == Player.STATE_READY) {
+    // Seek preview sprite for the current video, null until it has been extracted
+    @kotlin.OptIn(ExperimentalCoroutinesApi::class)
+    val thumbnailSprite: StateFlow<ThumbnailSprite?> = _currentVideo
+        .flatMapLatest { video -> if (video == null) flowOf(null) else thumbnails.sprite(video) }
+        .stateIn(viewModelScope, SharingStarted.WhileSubscribed(5000), null)
+
+    private val scrubber = SeekScrubber(viewModelScope, { exoPlayer }) { scrubbing ->
+        exoPlayer?.setSeekParameters(if (scrubbing) SeekParameters.CLOSEST_SYNC else SeekParameters.EXACT)
+    }
+
+    // Update duration when media is ready, follow playlist transitions
+    private val playerListener = object : Player.Listener {
+        override fun onIsPlayingChanged(isPlaying: Boolean) {
+            _videoState.value = _videoState.value.copy(isPlaying = isPlaying)
+            exoPlayer?.let(::reportDecoderUse)
+        }
+
+        override fun onPlaybackStateChanged(playbackState: Int) {
+            exoPlayer?.let(::reportDecoderUse)
+            if (playbackState == Player.STATE_READY) {
+                exoPlayer?.let { player ->
                     _videoState.value = _videoState.value.copy(
                         duration = player.duration
                     )
                 }
             }
+        }
+
+        override fun onMediaItemTransition(mediaItem: MediaItem?, reason: Int) {
+            queue?.let { queue ->
+                queue.recenter(videoPlaylist)
+                if (queue.currentIndex >= 0) {
+                    currentVideoIndex = queue.currentIndex
+                }
+            }
+            updateVideoInfo()
+        }
+    }
 
-            override fun onMediaItemTransition(mediaItem: MediaItem?, reason: Int) {
-                updateVideoInfo()
+    @OptIn(UnstableApi::class)
+    fun setPlayer(player: ExoPlayer) {
+        if (player === exoPlayer) return
+        // Players are pooled, never leave a listener behind on one we no longer drive
+        exoPlayer?.removeListener(playerListener)
+        _player.value = player
+        player.addListener(playerListener)
+        _videoState.value = _videoState.value.copy(isPlaying = player.isPlaying)
+        // Buffer the start of the next entry while the current one plays
+        player.preloadConfiguration = ExoPlayer.PreloadConfiguration(
+            Util.msToUs(preloadSettings.preloadDurationMs)
+        )
+        queue = WindowedQueue<Video>(player, preloadSettings.behind, preloadSettings.ahead) {
+            it.toMediaItem()
+        }.also { queue ->
+            if (videoPlaylist.isNotEmpty()) {
+                queue.load(videoPlaylist, currentVideoIndex)
             }
-        })
+        }
+        reportDecoderUse(player)
+        prioritizeThumbnails()
+    }
+
+    // Thumbnail extraction only runs while the player is paused or idle, never next to its decoder
+    private fun reportDecoderUse(player: Player) {
+        val state = player.playbackState
+        thumbnails.setPlayerDecoderUse(
+            decoding = player.isPlaying || state == Player.STATE_BUFFERING,
+            holdsDecoder = state == Player.STATE_READY || state == Player.STATE_BUFFERING
+        )
+    }
+
+    // The view handed its player back to the pool, or the pool revoked it; nothing is sent to it after this
+    fun clearPlayer(player: ExoPlayer) {
+        if (player !== exoPlayer) return
+        scrubber.end(null)
+        thumbnails.cancel()
+        thumbnails.setPlayerDecoderUse(decoding = false, holdsDecoder = false)
+        player.removeListener(playerListener)
+        _player.value = null
+        queue = null
     }
 
     // Set video playlist
     fun setVideoPlaylist(videos: List<Video>, startIndex: Int = 0) {
+        // The screen's effect restarts for an equal but new list, only act on a new one
+        if (videos === videoPlaylist) return
+
+        // Stay on the same video if it is still in the library
+        val currentId = videoPlaylist.getOrNull(currentVideoIndex)?.id
+        val keptIndex = videos.indexOfFirst { it.id == currentId }
         videoPlaylist = videos
+        currentVideoIndex = (if (keptIndex >= 0) keptIndex else startIndex)
+            .coerceIn(0, (videos.size - 1).coerceAtLeast(0))
+
+        exoPlayer?.let { player ->
+            if (videos.isNotEmpty()) {
+                val position = if (keptIndex >= 0) player.currentPosition else C.TIME_UNSET
+                queue?.load(videos, currentVideoIndex, position)
+            }
+        }
 
         updateVideoInfo()
     }
@@ -93,21 +201,20 @@ class VideoPlayerViewModel : ViewModel() {
                     .substringBeforeLast(".")
             } else ""
         )
+        _currentVideo.value = videoPlaylist.getOrNull(currentVideoIndex)
+        prioritizeThumbnails()
     }
 
-    private fun startPositionUpdates() {
-        positionUpdateJob?.cancel()
-        positionUpdateJob = viewModelScope.launch {
-            while (true) {
-                exoPlayer?.let { player ->
-                    _videoState.value = _videoState.value.copy(
-                        currentPosition = player.currentPosition,
-                        isPlaying = player.isPlaying
-                    )
-                }
-                delay(100) // Update every 100ms
-            }
-        }
+    // Current video first, then the ones next/previous would land on
+    private fun prioritizeThumbnails() {
+        if (exoPlayer == null) return
+        thumbnails.prioritize(
+            listOfNotNull(
+                videoPlaylist.getOrNull(currentVideoIndex),
+                videoPlaylist.getOrNull(currentVideoIndex + 1),
+                videoPlaylist.getOrNull(currentVideoIndex - 1)
+            )
+        )
     }
 
     fun togglePlayPause() {
@@ -120,18 +227,13 @@ class VideoPlayerViewModel : ViewModel() {
         }
     }
 
+    // Repeated double taps add up and settle with one exact seek
     fun seekForward() {
-        exoPlayer?.let { player ->
-            val newPosition = (player.currentPosition + 10000).coerceAtMost(player.duration)
-            player.seekTo(newPosition)
-        }
+        scrubber.nudge(10000)
     }
 
     fun seekBackward() {
-        exoPlayer?.let { player ->
-            val newPosition = (player.currentPosition - 10000).coerceAtLeast(0)
-            player.seekTo(newPosition)
-        }
+        scrubber.nudge(-10000)
     }
 
     fun updateBrightness(delta: Float) {
@@ -179,12 +281,10 @@ class VideoPlayerViewModel : ViewModel() {
 
             Log.d("tag__", "playVideoAtIndex: call")
             currentVideoIndex = index
-            val videoUri = Uri.parse(videoPlaylist[index].uri.toString())
-            val mediaItem = MediaItem.fromUri(videoUri)
 
             exoPlayer?.let { player ->
-                player.setMediaItem(mediaItem)
-                player.prepare()
+                // Neighbours are already prepared and buffering, so this is a seek within the playlist
+                queue?.seekTo(videoPlaylist, index)
                 player.play()
             }
 
@@ -197,6 +297,15 @@ class VideoPlayerViewModel : ViewModel() {
         exoPlayer?.seekTo(position)
     }
 
+    // Coalesced keyframe seeks while the user drags the progress bar
+    fun scrubTo(position: Long) {
+        scrubber.scrubTo(position)
+    }
+
+    fun endScrub(position: Long) {
+        scrubber.end(position)
+    }
+
 
 
     private fun formatTime(timeMs: Long): String {
@@ -212,6 +321,12 @@ class VideoPlayerViewModel : ViewModel() {
         }
     }
 
+    private fun Video.toMediaItem(): MediaItem =
+        MediaItem.Builder()
+            .setUri(uri)
+            .setMediaId(id.toString())
+            .build()
+
     // Auto-play next video when current ends
     fun handleVideoEnd() {
         if (currentVideoIndex < videoPlaylist.size - 1) {
@@ -228,15 +343,16 @@ class VideoPlayerViewModel : ViewModel() {
 
     override fun onCleared() {
         super.onCleared()
-        positionUpdateJob?.cancel()
-        exoPlayer?.release()
+        // The player belongs to the pool, only detach from it
+        exoPlayer?.removeListener(playerListener)
+        thumbnails.cancel()
+        _player.value = null
     }
 }
 
 // Updated VideoState data class
 data class VideoState(
     val isPlaying: Boolean = false,
-    val currentPosition: Long = 0L,
     val duration: Long = 0L,
     val brightness: Float = 0.5f,
     val volume: Float = 1.0f,
@@ -0,0 +1,100 @@
+package com.example.videoplayer.Presentation.AudioPlayer.playerScreen
+
+import android.content.Context
+import android.util.Log
+import androidx.annotation.MainThread
+import androidx.annotation.OptIn
+import androidx.compose.runtime.mutableStateOf
+import androidx.media3.common.util.UnstableApi
+import androidx.media3.exoplayer.ExoPlayer
+import androidx.media3.exoplayer.SeekParameters
+import com.example.videoplayer.Service.PlayerProfile
+
+/**
+ * Video players owned outside composition. A [VideoView] leases a player and
+ * hands it back when it leaves, the player is stopped but kept with its
+ * renderers so the next screen starts warm.
+ *
+ * At most [maxPlayers] exist at once. When every player is leased the
+ * oldest lease is revoked and its player reused, so fast navigation never
+ * stacks up decoders. The holder of a revoked lease is told through
+ * [Lease.doOnRevoke] and must stop driving the player.
+ */
+class VideoPlayerPool(
+    private val context: Context,
+    private val maxPlayers: Int = DEFAULT_MAX_PLAYERS
+) {
+
+    class Lease internal constructor(val player: ExoPlayer) {
+        // Snapshot state, so a composable holding the lease recomposes when it is revoked
+        private val revoked = mutableStateOf(false)
+        private val onRevoke = ArrayList<() -> Unit>()
+
+        val isRevoked: Boolean get() = revoked.value
+
+        // Runs when the pool hands the player to someone else, before it is reset
+        @MainThread
+        fun doOnRevoke(action: () -> Unit) {
+            if (isRevoked) action() else onRevoke.add(action)
+        }
+
+        internal fun revoke() {
+            revoked.value = true
+            onRevoke.forEach { it() }
+            onRevoke.clear()
+        }
+    }
+
+    private val idle = ArrayDeque<ExoPlayer>()
+    private val leases = ArrayDeque<Lease>()  // oldest first
+
+    @MainThread
+    fun acquire(): Lease {
+        val player = idle.removeFirstOrNull()
+            ?: if (idle.size + leases.size < maxPlayers) build() else revokeOldest()
+        return Lease(player).also { leases.addLast(it) }
+    }
+
+    @MainThread
+    fun release(lease: Lease) {
+        // A revoked lease's player already belongs to someone else
+        if (!leases.remove(lease)) return
+        reset(lease.player)
+        idle.addLast(lease.player)
+    }
+
+    // Drop idle players, e.g. under memory pressure
+    @MainThread
+    fun trim() {
+        while (idle.isNotEmpty()) {
+            idle.removeFirst().release()
+        }
+    }
+
+    private fun build(): ExoPlayer = PlayerProfile.VIDEO.build(context)
+
+    private fun revokeOldest(): ExoPlayer {
+        val oldest = leases.removeFirst()
+        oldest.revoke()
+        Log.w(VIDEO_PLAYER_POOL_LOGGER, "Player cap of $maxPlayers reached, reusing the oldest lease")
+        reset(oldest.player)
+        return oldest.player
+    }
+
+    // Back to a blank state without tearing down renderers
+    @OptIn(UnstableApi::class)
+    private fun reset(player: ExoPlayer) {
+        player.playWhenReady = false
+        player.stop()
+        player.clearMediaItems()
+        player.volume = 1f
+        player.setPlaybackSpeed(1f)
+        player.preloadConfiguration = ExoPlayer.PreloadConfiguration.DEFAULT
+        player.setSeekParameters(SeekParameters.DEFAULT)
+    }
+
+    companion object {
+        private const val VIDEO_PLAYER_POOL_LOGGER = "VIDEO_PLAYER_POOL"
+        const val DEFAULT_MAX_PLAYERS = 2
+    }
+}
@@ -2,29 +2,17 @@ package com.example.videoplayer.Presentation.AudioPlayer.videosScreen
 
 import androidx.lifecycle.ViewModel
 import kotlinx.coroutines.flow.Flow
-import android.content.ContentResolver
-import android.content.Context
-import android.net.Uri
-import android.provider.MediaStore
 
 import androidx.compose.runtime.State
 import androidx.compose.runtime.mutableStateOf
+import com.example.videoplayer.Domain.Models.Video
+import com.example.videoplayer.Domain.Repository.IVideoRepository
 
-import kotlinx.coroutines.flow.flow
 
-data class Video(
-    val id: Long,
-    val uri: Uri,
-    val name: String,
-    val duration: Long,
-    val size: Long
-)
+class ViewViewModel(private val videoRepository: IVideoRepository) : ViewModel() {
 
-
-
-class ViewViewModel(context: Context) : ViewModel() {
-
-    val videos: Flow<List<Video>> = getAllVideos(context)
+    // Shared with every other screen, the query runs once on IO
+    val videos: Flow<List<Video>> = videoRepository.videos
 
     private val _currentVideoIndex = mutableStateOf(0)
     // Public read-only state
@@ -37,48 +25,10 @@ class ViewViewModel(context: Context) : ViewModel() {
         _currentVideoIndex.value = index
     }
 
+    fun getVideoById(id: Long): Video? = videoRepository.getVideoById(id)
 
-
-    fun getAllVideos(context: Context): Flow<List<Video>> = flow {
-        val videoList = mutableListOf<Video>()
-        val contentResolver: ContentResolver = context.contentResolver
-
-        val projection = arrayOf(
-            MediaStore.Video.Media._ID,
-            MediaStore.Video.Media.DISPLAY_NAME,
-            MediaStore.Video.Media.DURATION,
-            MediaStore.Video.Media.SIZE
-        )
-
-        val sortOrder = "${MediaStore.Video.Media.DATE_ADDED} DESC"
-
-        contentResolver.query(
-            MediaStore.Video.Media.EXTERNAL_CONTENT_URI,
-            projection,
-            null,
-            null,
-            sortOrder
-        )?.use { cursor ->
-            val idColumn = cursor.getColumnIndexOrThrow(MediaStore.Video.Media._ID)
-            val nameColumn = cursor.getColumnIndexOrThrow(MediaStore.Video.Media.DISPLAY_NAME)
-            val durationColumn = cursor.getColumnIndexOrThrow(MediaStore.Video.Media.DURATION)
-            val sizeColumn = cursor.getColumnIndexOrThrow(MediaStore.Video.Media.SIZE)
-
-            while (cursor.moveToNext()) {
-                val id = cursor.getLong(idColumn)
-                val name = cursor.getString(nameColumn)
-                val duration = cursor.getLong(durationColumn)
-                val size = cursor.getLong(sizeColumn)
-                val contentUri = Uri.withAppendedPath(
-                    MediaStore.Video.Media.EXTERNAL_CONTENT_URI,
-                    id.toString()
-                )
-
-                videoList.add(Video(id, contentUri, name, duration, size))
-            }
-        }
-
-        emit(videoList)
+    fun refreshVideos() {
+        videoRepository.refresh()
     }
 
-}
\ No newline at end of file
+}
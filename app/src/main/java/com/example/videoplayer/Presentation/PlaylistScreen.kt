@@ -3,11 +3,13 @@ import androidx.compose.foundation.Image
 import androidx.compose.foundation.clickable
 import androidx.compose.foundation.layout.*
 import androidx.compose.foundation.lazy.LazyColumn
+import androidx.compose.foundation.lazy.items
 import androidx.compose.foundation.lazy.itemsIndexed
 import androidx.compose.foundation.shape.RoundedCornerShape
 import androidx.compose.material.icons.Icons
 import androidx.compose.material.icons.filled.ArrowBack
 import androidx.compose.material.icons.filled.PlayArrow
+import androidx.compose.material.icons.filled.Search
 
 import androidx.compose.material3.*
 import androidx.compose.runtime.*
@@ -23,7 +25,10 @@ import androidx.compose.ui.unit.dp
 import androidx.lifecycle.compose.collectAsStateWithLifecycle
 import androidx.navigation.NavController
 import coil.compose.rememberAsyncImagePainter
+import kotlinx.coroutines.flow.distinctUntilChanged
+import kotlinx.coroutines.flow.map
 import com.example.videoplayer.Domain.Models.Track
+import com.example.videoplayer.Presentation.AudioPlayer.Utils.TrackRecompositions
 import com.example.videoplayer.Presentation.AudioPlayer.formatTime
 import com.example.videoplayer.Presentation.VideoPlayer.MusicPlayerViewModel
 import com.example.videoplayer.R
@@ -34,7 +39,14 @@ fun PlaylistScreen(
     navController: NavController,
     viewModel: MusicPlayerViewModel,
 ) {
-    val playerState by viewModel.playerState.collectAsStateWithLifecycle()
+    TrackRecompositions("PlaylistScreen")
+    val playlist by viewModel.playlist.collectAsStateWithLifecycle()
+    val currentItem by viewModel.currentItem.collectAsStateWithLifecycle()
+    val isPlaying by remember(viewModel) {
+        viewModel.transport.map { it.isPlaying }.distinctUntilChanged()
+    }.collectAsStateWithLifecycle(initialValue = false)
+    val searchQuery by viewModel.searchQuery.collectAsStateWithLifecycle()
+    val searchResults by viewModel.searchResults.collectAsStateWithLifecycle()
     
     Column(
         modifier = Modifier.fillMaxSize()
@@ -55,18 +67,42 @@ fun PlaylistScreen(
             }
         )
         
+        OutlinedTextField(
+            value = searchQuery,
+            onValueChange = viewModel::onSearchQueryChange,
+            modifier = Modifier
+                .fillMaxWidth()
+                .padding(horizontal = 16.dp),
+            placeholder = { Text("Search songs, artists, albums") },
+            leadingIcon = { Icon(Icons.Default.Search, contentDescription = "Search") },
+            singleLine = true
+        )
+        
         LazyColumn(
             modifier = Modifier.fillMaxSize(),
             contentPadding = PaddingValues(16.dp),
             verticalArrangement = Arrangement.spacedBy(8.dp)
         ) {
-            itemsIndexed(playerState.playlist) { index, track ->
-                TrackItem(
-                    track = track,
-                    isCurrentTrack = index == playerState.currentIndex,
-                    isPlaying = playerState.isPlaying && index == playerState.currentIndex,
-                    onClick = { viewModel.playTrack(index) }
-                )
+            if (searchQuery.isBlank()) {
+                itemsIndexed(playlist) { index, track ->
+                    val isCurrentTrack = index == currentItem?.index
+                    TrackItem(
+                        track = track,
+                        isCurrentTrack = isCurrentTrack,
+                        isPlaying = isPlaying && isCurrentTrack,
+                        onClick = { viewModel.playTrack(index) }
+                    )
+                }
+            } else {
+                items(searchResults, key = { it.id }) { track ->
+                    val isCurrentTrack = track.id == currentItem?.track?.id
+                    TrackItem(
+                        track = track,
+                        isCurrentTrack = isCurrentTrack,
+                        isPlaying = isPlaying && isCurrentTrack,
+                        onClick = { viewModel.playTrackById(track.id) }
+                    )
+                }
             }
         }
     }
@@ -79,6 +115,7 @@ fun TrackItem(
     isPlaying: Boolean,
     onClick: () -> Unit
 ) {
+    TrackRecompositions("TrackItem")
     Card(
         modifier = Modifier
             .fillMaxWidth()
@@ -1,141 +1,260 @@
 package com.example.videoplayer.Presentation.VideoPlayer// presentation/viewmodel/MusicPlayerViewModel.kt
+import androidx.compose.runtime.Immutable
 import androidx.lifecycle.ViewModel
 import androidx.lifecycle.viewModelScope
+import android.os.Bundle
+import android.util.Log
 import androidx.media3.common.MediaItem
+import androidx.core.os.bundleOf
 import androidx.media3.common.Player
-import androidx.media3.exoplayer.ExoPlayer
+import androidx.media3.session.MediaController
+import androidx.media3.session.SessionCommand
+import com.example.videoplayer.Data.Library.PagedList
+import com.example.videoplayer.Data.Library.indexOfTrackId
+import com.example.videoplayer.Domain.Models.LibraryChange
 import com.example.videoplayer.Domain.Models.Track
 import com.example.videoplayer.Domain.UseCase.MusicPlayerUseCase
+import com.example.videoplayer.Presentation.AudioPlayer.Utils.SeekScrubber
+import com.example.videoplayer.Presentation.AudioPlayer.Utils.playerPositionFlow
+import com.example.videoplayer.Service.MusicPlayerConnection
+import com.example.videoplayer.Service.MusicService
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.SharingStarted
 import kotlinx.coroutines.flow.StateFlow
 import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.flow.flatMapLatest
+import kotlinx.coroutines.flow.flowOf
+import kotlinx.coroutines.flow.stateIn
+import kotlinx.coroutines.flow.update
 import kotlinx.coroutines.launch
 import javax.inject.Inject
 
-data class PlayerState(
+private const val MUSIC_PLAYER_LOGGER = "MUSIC_PLAYER"
+
+// Player state is split so each screen part only recomposes for what it reads:
+// the playlist rarely changes, the current item on transitions, transport on play/pause,
+// and the position (see MusicPlayerViewModel.currentPosition) every frame.
+
+@Immutable
+data class TransportState(
     val isPlaying: Boolean = false,
-    val currentTrack: Track? = null,
-    val currentPosition: Long = 0L,
-    val duration: Long = 0L,
-    val playlist: List<Track> = emptyList(),
-    val currentIndex: Int = 0
+    val duration: Long = 0L
+)
+
+// The item the player is on, as a playlist row
+@Immutable
+data class CurrentItem(
+    val track: Track,
+    val index: Int
 )
 
 class MusicPlayerViewModel(
     private val musicPlayerUseCase: MusicPlayerUseCase,
-    private val exoPlayer: ExoPlayer
+    private val playerConnection: MusicPlayerConnection
 ) : ViewModel() {
     
-    private val _playerState = MutableStateFlow(PlayerState())
-    val playerState: StateFlow<PlayerState> = _playerState.asStateFlow()
+    // Controller for the player MusicService owns, null until connected
+    private val _player = MutableStateFlow<MediaController?>(null)
+    private val player: MediaController? get() = _player.value
+    
+    // Drag seeks on the progress bar; seek parameters live on the service's player
+    private val scrubber = SeekScrubber(viewModelScope, { player }) { scrubbing ->
+        player?.sendCustomCommand(
+            SessionCommand(MusicService.COMMAND_SET_SCRUBBING, Bundle.EMPTY),
+            bundleOf(MusicService.EXTRA_SCRUBBING to scrubbing)
+        )
+    }
+    
+    private val _playlist = MutableStateFlow<List<Track>>(emptyList())
+    val playlist: StateFlow<List<Track>> = _playlist.asStateFlow()
+    
+    private val _currentItem = MutableStateFlow<CurrentItem?>(null)
+    val currentItem: StateFlow<CurrentItem?> = _currentItem.asStateFlow()
+    
+    private val _transport = MutableStateFlow(TransportState())
+    val transport: StateFlow<TransportState> = _transport.asStateFlow()
+    
+    // Ticks per frame while playing and only while the UI collects it; read it in the
+    // draw phase or in the smallest scope that shows it
+    @OptIn(ExperimentalCoroutinesApi::class)
+    val currentPosition: Flow<Long> = _player.flatMapLatest { player ->
+        if (player == null) flowOf(0L) else playerPositionFlow(player)
+    }
+    
+    // Search over the library, empty query means no filter
+    private val _searchQuery = MutableStateFlow("")
+    val searchQuery: StateFlow<String> = _searchQuery.asStateFlow()
+    
+    val searchResults: StateFlow<List<Track>> = musicPlayerUseCase.searchTracks(_searchQuery)
+        .stateIn(viewModelScope, SharingStarted.WhileSubscribed(5000), emptyList())
     
     private val playerListener = object : Player.Listener {
         override fun onIsPlayingChanged(isPlaying: Boolean) {
-            _playerState.value = _playerState.value.copy(isPlaying = isPlaying)
+            _transport.update { it.copy(isPlaying = isPlaying) }
         }
         
+        // MusicService slides the queue window, we only follow the current item
         override fun onMediaItemTransition(mediaItem: MediaItem?, reason: Int) {
             updateCurrentTrack()
         }
         
         override fun onPlaybackStateChanged(playbackState: Int) {
             if (playbackState == Player.STATE_READY) {
-                _playerState.value = _playerState.value.copy(
-                    duration = exoPlayer.duration.coerceAtLeast(0L)
-                )
+                _transport.update { it.copy(duration = player?.duration?.coerceAtLeast(0L) ?: 0L) }
             }
         }
     }
     
     init {
-        exoPlayer.addListener(playerListener)
+        connectPlayer()
         loadTracks()
-        startPositionUpdates()
+        observeLibraryChanges()
+    }
+    
+    // Playback may already be running in the service from an earlier screen, pick it up as-is
+    private fun connectPlayer() {
+        viewModelScope.launch {
+            val controller = try {
+                playerConnection.controller()
+            } catch (e: CancellationException) {
+                throw e
+            } catch (e: Exception) {
+                Log.e(MUSIC_PLAYER_LOGGER, "Could not connect to MusicService", e)
+                return@launch
+            }
+            _player.value = controller
+            controller.addListener(playerListener)
+            _transport.value = TransportState(
+                isPlaying = controller.isPlaying,
+                duration = controller.duration.coerceAtLeast(0L)
+            )
+            updateCurrentTrack()
+        }
     }
     
+    // Tracks arrive in pages, so the list is usable before the scan finishes
     private fun loadTracks() {
         viewModelScope.launch {
-            musicPlayerUseCase.getAllTracks().collect { tracks ->
-                _playerState.value = _playerState.value.copy(playlist = tracks)
-                if (tracks.isNotEmpty()) {
-                    setupPlaylist(tracks)
-                }
+            musicPlayerUseCase.getTrackPages().collect { page ->
+                appendPage(page)
             }
+            adoptLibrary()
         }
     }
     
-    private fun setupPlaylist(tracks: List<Track>) {
-        val mediaItems = tracks.map { track ->
-            MediaItem.Builder()
-                .setUri(track.uri)
-                .setMediaId(track.id.toString())
-                .build()
+    private fun appendPage(page: List<Track>) {
+        val current = _playlist.value
+        // Keep the repository's list as-is when it arrives in one piece, otherwise
+        // stack the pages without copying them
+        _playlist.value = when {
+            current.isEmpty() -> page
+            current is PagedList -> current.append(page)
+            else -> PagedList<Track>().append(current).append(page)
         }
-        exoPlayer.setMediaItems(mediaItems)
-        exoPlayer.prepare()
-        updateCurrentTrack()
+        // The track playing may be on this page
+        if (_currentItem.value == null) updateCurrentTrack()
     }
     
-    private fun updateCurrentTrack() {
-        val currentIndex = exoPlayer.currentMediaItemIndex
-        val playlist = _playerState.value.playlist
-        if (currentIndex >= 0 && currentIndex < playlist.size) {
-            _playerState.value = _playerState.value.copy(
-                currentTrack = playlist[currentIndex],
-                currentIndex = currentIndex
-            )
+    // Once the scan is done, swap the pages of full Track objects for the repository's
+    // columnar store. Same rows in the same order, so the current index stays valid.
+    private suspend fun adoptLibrary() {
+        if (_playlist.value !is PagedList) return
+        val library = musicPlayerUseCase.getAllTracks().first()
+        if (_playlist.value is PagedList && library.size == _playlist.value.size) {
+            _playlist.value = library
         }
     }
     
-    private fun startPositionUpdates() {
+    private fun observeLibraryChanges() {
         viewModelScope.launch {
-            while (true) {
-                kotlinx.coroutines.delay(1000)
-                if (exoPlayer.isPlaying) {
-                    _playerState.value = _playerState.value.copy(
-                        currentPosition = exoPlayer.currentPosition.coerceAtLeast(0L)
-                    )
-                }
+            musicPlayerUseCase.observeLibraryChanges().collect { change ->
+                applyLibraryChange(change)
             }
         }
     }
     
+    // The change carries the repository's updated library, which becomes the playlist as-is.
+    // MusicService patches its queue window from the same change.
+    private fun applyLibraryChange(change: LibraryChange) {
+        _playlist.value = change.library
+        updateCurrentTrack()
+    }
+    
+    private fun updateCurrentTrack() {
+        val id = player?.currentMediaItem?.mediaId?.toLongOrNull() ?: return
+        val playlist = _playlist.value
+        val index = playlist.indexOfTrackId(id)
+        if (index >= 0) {
+            // Equal items don't re-emit, so a transition within the same track never touches the UI
+            _currentItem.value = CurrentItem(playlist[index], index)
+        }
+    }
+    
     fun playPause() {
-        if (exoPlayer.isPlaying) {
-            exoPlayer.pause()
+        val player = player ?: return
+        if (player.isPlaying) {
+            player.pause()
         } else {
-            exoPlayer.play()
+            player.play()
         }
     }
     
     fun seekTo(position: Long) {
-        exoPlayer.seekTo(position)
+        player?.seekTo(position)
+    }
+    
+    // Coalesced keyframe seeks while the user drags
+    fun scrubTo(position: Long) {
+        scrubber.scrubTo(position)
+    }
+    
+    fun endScrub(position: Long) {
+        scrubber.end(position)
     }
     
     fun skipToNext() {
-        if (exoPlayer.hasNextMediaItem()) {
-            exoPlayer.seekToNext()
+        val player = player ?: return
+        if (player.hasNextMediaItem()) {
+            player.seekToNext()
         }
     }
     
     fun skipToPrevious() {
-        if (exoPlayer.hasPreviousMediaItem()) {
-            exoPlayer.seekToPrevious()
+        val player = player ?: return
+        if (player.hasPreviousMediaItem()) {
+            player.seekToPrevious()
         }
     }
     
     fun playTrack(trackIndex: Int) {
-        exoPlayer.seekToDefaultPosition(trackIndex)
-        exoPlayer.play()
+        val track = _playlist.value.getOrNull(trackIndex) ?: return
+        playTrackById(track.id)
+    }
+    
+    fun onSearchQueryChange(query: String) {
+        _searchQuery.value = query
+    }
+    
+    // The service owns the queue: it finds the track and builds the window around it
+    fun playTrackById(id: Long) {
+        player?.sendCustomCommand(
+            SessionCommand(MusicService.COMMAND_PLAY_TRACK, Bundle.EMPTY),
+            bundleOf(MusicService.EXTRA_TRACK_ID to id)
+        )
     }
     
     fun stop() {
-        exoPlayer.stop()
+        player?.stop()
     }
     
+    // The player lives on in MusicService, only stop listening to it
     override fun onCleared() {
         super.onCleared()
-        exoPlayer.removeListener(playerListener)
-        exoPlayer.release()
+        player?.removeListener(playerListener)
+        _player.value = null
     }
 }
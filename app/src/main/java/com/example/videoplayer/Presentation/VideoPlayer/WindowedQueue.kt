@@ -0,0 +1,123 @@
+package com.example.videoplayer.Presentation.VideoPlayer// presentation/viewmodel/WindowedQueue.kt
+import androidx.media3.common.C
+import androidx.media3.common.MediaItem
+import androidx.media3.common.Player
+
+/**
+ * Keeps only a window of the playlist inside the player, centred on the
+ * current item. The music queue uses it to bound the timeline; the video
+ * player uses it so neighbouring entries are already prepared. Items are
+ * materialized as the window slides, so queue setup and memory stay flat
+ * however large the library is.
+ *
+ * Player item 0 is playlist row [windowStart]; callers translate indices
+ * through [currentIndex] and [seekTo] rather than talking to the player directly.
+ */
+class WindowedQueue<T>(
+    private val player: Player,
+    private val behind: Int = DEFAULT_BEHIND,
+    private val ahead: Int = DEFAULT_AHEAD,
+    private val mediaItemOf: (T) -> MediaItem
+) {
+
+    var windowStart = 0
+        private set
+
+    val isEmpty: Boolean get() = player.mediaItemCount == 0
+
+    // Playlist row of the current item, or -1 when the player is empty
+    val currentIndex: Int
+        get() = if (isEmpty) -1 else windowStart + player.currentMediaItemIndex
+
+    // Replace the player's items with a window around [index]
+    fun load(playlist: List<T>, index: Int, positionMs: Long = C.TIME_UNSET) {
+        if (playlist.isEmpty()) {
+            player.clearMediaItems()
+            windowStart = 0
+            return
+        }
+        val target = index.coerceIn(0, playlist.size - 1)
+        val start = (target - behind).coerceAtLeast(0)
+        val end = (target + ahead + 1).coerceAtMost(playlist.size)
+        windowStart = start
+        player.setMediaItems(playlist.subList(start, end).map { mediaItemOf(it) }, target - start, positionMs)
+        player.prepare()
+    }
+
+    // Adopt the items already in the player, whose first item is playlist row [start]
+    fun anchorAt(start: Int) {
+        windowStart = start
+    }
+
+    fun seekTo(playlist: List<T>, index: Int) {
+        val playerIndex = index - windowStart
+        if (playerIndex in 0 until player.mediaItemCount) {
+            player.seekToDefaultPosition(playerIndex)
+        } else {
+            load(playlist, index)
+        }
+    }
+
+    /**
+     * Slide the window after the current item moved or the playlist grew.
+     * Each side is refilled once it drops below half its size and trimmed
+     * once it doubles, so a plain skip rarely touches the timeline.
+     */
+    fun recenter(playlist: List<T>) {
+        if (isEmpty) return
+        val current = currentIndex
+        val windowEnd = windowStart + player.mediaItemCount
+
+        val aheadCount = windowEnd - current - 1
+        if (aheadCount < (ahead / 2).coerceAtLeast(1) && windowEnd < playlist.size) {
+            val end = (current + ahead + 1).coerceAtMost(playlist.size)
+            player.addMediaItems(playlist.subList(windowEnd, end).map { mediaItemOf(it) })
+        } else if (aheadCount > ahead * 2) {
+            player.removeMediaItems(current - windowStart + ahead + 1, player.mediaItemCount)
+        }
+
+        val behindCount = current - windowStart
+        val refillStart = (current - behind).coerceAtLeast(0)
+        if (behindCount < (behind / 2).coerceAtLeast(1) && refillStart < windowStart) {
+            player.addMediaItems(0, playlist.subList(refillStart, windowStart).map { mediaItemOf(it) })
+            windowStart = refillStart
+        } else if (behindCount > behind * 2) {
+            val drop = behindCount - behind
+            player.removeMediaItems(0, drop)
+            windowStart += drop
+        }
+    }
+
+    /**
+     * Drop removed rows from the window and re-anchor it in [playlist], the
+     * library after the change. [previous] is the library the window was built from.
+     */
+    fun applyRemovals(previous: List<T>, playlist: List<T>, isRemoved: (T) -> Boolean) {
+        if (isEmpty) return
+        if (windowStart + player.mediaItemCount > previous.size) {
+            // Window no longer matches what we think it holds, start over at the same spot
+            load(playlist, currentIndex)
+            return
+        }
+
+        val removedBefore = (0 until windowStart).count { isRemoved(previous[it]) }
+        // Walk backwards so the remaining indices stay valid
+        for (playerIndex in player.mediaItemCount - 1 downTo 0) {
+            if (isRemoved(previous[windowStart + playerIndex])) {
+                player.removeMediaItem(playerIndex)
+            }
+        }
+        windowStart -= removedBefore
+
+        if (isEmpty) {
+            load(playlist, windowStart)
+        } else {
+            recenter(playlist)
+        }
+    }
+
+    companion object {
+        const val DEFAULT_BEHIND = 8
+        const val DEFAULT_AHEAD = 16
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.videoplayer.Service// presentation/service/MappedFileDataSource.kt
+import android.content.Context
+import android.net.Uri
+import android.os.Build
+import android.os.SharedMemory
+import android.provider.MediaStore
+import android.util.Log
+import android.util.LruCache
+import androidx.annotation.OptIn
+import androidx.media3.common.C
+import androidx.media3.common.PlaybackException
+import androidx.media3.common.util.UnstableApi
+import androidx.media3.datasource.BaseDataSource
+import androidx.media3.datasource.DataSource
+import androidx.media3.datasource.DataSourceException
+import androidx.media3.datasource.DataSpec
+import androidx.media3.datasource.DefaultDataSource
+import java.io.FileInputStream
+import java.io.FileNotFoundException
+import java.nio.MappedByteBuffer
+import java.nio.channels.FileChannel
+
+private const val MAPPED_DATA_SOURCE_LOGGER = "MAPPED_DATA_SOURCE"
+
+/**
+ * Reads local media straight from a memory-mapped file instead of through the
+ * content resolver, so there is no binder call and no kernel read() copy; the
+ * one copy left is into the extractor's array, which the DataSource API requires.
+ *
+ * MediaStore uris are resolved to their DATA path. When there is no path or it
+ * is not readable (scoped storage, removed volume) the read goes to [fallback].
+ * Large files are mapped one window at a time as the read advances; the
+ * previous window is unmapped before the next is mapped, so streaming a long
+ * video never holds more than one window of address space.
+ *
+ * Opt-in through PlayerProfile.build(mappedFileReads = true), and compare
+ * it against the content resolver with the DataSourceBenchmark instrumented
+ * test before turning it on.
+ */
+@OptIn(UnstableApi::class)
+class MappedFileDataSource private constructor(
+    private val context: Context,
+    private val fallback: DataSource,
+    private val paths: LruCache<String, String>
+) : BaseDataSource(/* isNetwork = */ false) {
+
+    /**
+     * Paths resolved from MediaStore are shared by every source the factory
+     * creates, so reopening a file after a seek does not query again.
+     */
+    class Factory(private val context: Context) : DataSource.Factory {
+        private val fallbackFactory = DefaultDataSource.Factory(context)
+        private val paths = LruCache<String, String>(PATH_CACHE_SIZE)
+
+        override fun createDataSource(): DataSource =
+            MappedFileDataSource(context, fallbackFactory.createDataSource(), paths)
+    }
+
+    private var uri: Uri? = null
+    private var channel: FileChannel? = null
+    private var window: MappedByteBuffer? = null
+    private var windowStart = 0L
+    private var position = 0L
+    private var bytesRemaining = 0L
+    private var usingFallback = false
+    private var opened = false
+
+    override fun open(dataSpec: DataSpec): Long {
+        uri = dataSpec.uri
+        val channel = openChannel(dataSpec.uri)
+        if (channel == null) {
+            usingFallback = true
+            return fallback.open(dataSpec)
+        }
+        this.channel = channel
+
+        transferInitializing(dataSpec)
+        val size = channel.size()
+        if (dataSpec.position > size) {
+            throw DataSourceException(PlaybackException.ERROR_CODE_IO_READ_POSITION_OUT_OF_RANGE)
+        }
+        position = dataSpec.position
+        bytesRemaining = if (dataSpec.length != C.LENGTH_UNSET.toLong()) {
+            minOf(dataSpec.length, size - position)
+        } else {
+            size - position
+        }
+
+        opened = true
+        transferStarted(dataSpec)
+        return bytesRemaining
+    }
+
+    override fun read(buffer: ByteArray, offset: Int, length: Int): Int {
+        if (usingFallback) return fallback.read(buffer, offset, length)
+        if (length == 0) return 0
+        if (bytesRemaining == 0L) return C.RESULT_END_OF_INPUT
+
+        val window = windowAt(position)
+        val count = minOf(length.toLong(), bytesRemaining, window.remaining().toLong()).toInt()
+        window.get(buffer, offset, count)
+
+        position += count
+        bytesRemaining -= count
+        bytesTransferred(count)
+        return count
+    }
+
+    override fun getUri(): Uri? = if (usingFallback) fallback.uri else uri
+
+    override fun close() {
+        try {
+            if (usingFallback) {
+                fallback.close()
+            } else {
+                channel?.close()
+            }
+        } finally {
+            releaseWindow()
+            channel = null
+            uri = null
+            usingFallback = false
+            if (opened) {
+                opened = false
+                transferEnded()
+            }
+        }
+    }
+
+    // Mapped region covering [position], remapped when a read or seek leaves the current one
+    private fun windowAt(position: Long): MappedByteBuffer {
+        val current = window
+        if (current != null && position >= windowStart && position < windowStart + current.capacity()) {
+            current.position((position - windowStart).toInt())
+            return current
+        }
+
+        releaseWindow()
+        val channel = checkNotNull(channel)
+        val length = minOf(windowBytes, channel.size() - position)
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, length).also {
+            window = it
+            windowStart = position
+        }
+    }
+
+    private fun releaseWindow() {
+        val current = window ?: return
+        window = null
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O_MR1) {
+            try {
+                // Unmaps right away instead of whenever the buffer is collected
+                SharedMemory.unmap(current)
+            } catch (e: IllegalArgumentException) {
+                Log.w(MAPPED_DATA_SOURCE_LOGGER, "Could not unmap window, leaving it to GC", e)
+            }
+        }
+    }
+
+    private fun openChannel(uri: Uri): FileChannel? {
+        val path = resolvePath(uri) ?: return null
+        return try {
+            FileInputStream(path).channel
+        } catch (e: FileNotFoundException) {
+            // Also thrown for EACCES, e.g. scoped storage without legacy access
+            Log.d(MAPPED_DATA_SOURCE_LOGGER, "No direct access to $path, using the content resolver")
+            null
+        } catch (e: SecurityException) {
+            null
+        }
+    }
+
+    private fun resolvePath(uri: Uri): String? {
+        when (uri.scheme) {
+            "file" -> return uri.path
+            "content" -> if (uri.authority != MediaStore.AUTHORITY) return null
+            else -> return null
+        }
+
+        val key = uri.toString()
+        paths.get(key)?.let { return it }
+
+        @Suppress("DEPRECATION")
+        val column = MediaStore.MediaColumns.DATA
+        val path = try {
+            context.contentResolver.query(uri, arrayOf(column), null, null, null)?.use { cursor ->
+                if (cursor.moveToFirst()) cursor.getString(0) else null
+            }
+        } catch (e: Exception) {
+            Log.d(MAPPED_DATA_SOURCE_LOGGER, "Could not resolve a path for $uri", e)
+            null
+        }
+        return path?.also { paths.put(key, it) }
+    }
+
+    companion object {
+        // Before API 27 there is no way to unmap, keep what may linger until GC small
+        private val windowBytes: Long =
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O_MR1) 64L * 1024 * 1024 else 8L * 1024 * 1024
+        private const val PATH_CACHE_SIZE = 256
+    }
+}
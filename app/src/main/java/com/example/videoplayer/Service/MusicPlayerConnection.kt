@@ -0,0 +1,57 @@
+package com.example.videoplayer.Service// presentation/service/MusicPlayerConnection.kt
+import android.content.ComponentName
+import android.content.Context
+import androidx.annotation.MainThread
+import androidx.core.content.ContextCompat
+import androidx.media3.session.MediaController
+import androidx.media3.session.SessionToken
+import com.google.common.util.concurrent.ListenableFuture
+import kotlinx.coroutines.suspendCancellableCoroutine
+import java.util.concurrent.ExecutionException
+import kotlin.coroutines.resume
+import kotlin.coroutines.resumeWithException
+
+/**
+ * The UI side of [MusicService]. One MediaController for the whole app,
+ * connected on first use and shared by every ViewModel; none of them may
+ * release it.
+ */
+class MusicPlayerConnection(private val context: Context) {
+
+    private var controllerFuture: ListenableFuture<MediaController>? = null
+
+    @MainThread
+    suspend fun controller(): MediaController {
+        val future = controllerFuture ?: MediaController.Builder(
+            context,
+            SessionToken(context, ComponentName(context, MusicService::class.java))
+        ).buildAsync().also { controllerFuture = it }
+
+        return try {
+            future.await()
+        } catch (e: ExecutionException) {
+            // Let the next caller try again
+            if (controllerFuture === future) controllerFuture = null
+            throw e.cause ?: e
+        }
+    }
+
+    @MainThread
+    fun release() {
+        controllerFuture?.let { MediaController.releaseFuture(it) }
+        controllerFuture = null
+    }
+
+    private suspend fun <T> ListenableFuture<T>.await(): T {
+        if (isDone) return get()
+        return suspendCancellableCoroutine { continuation ->
+            addListener({
+                try {
+                    continuation.resume(get())
+                } catch (e: ExecutionException) {
+                    continuation.resumeWithException(e)
+                }
+            }, ContextCompat.getMainExecutor(context))
+        }
+    }
+}
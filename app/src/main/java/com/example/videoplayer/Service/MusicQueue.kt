@@ -0,0 +1,108 @@
+package com.example.videoplayer.Service// presentation/service/MusicQueue.kt
+import androidx.media3.common.MediaItem
+import androidx.media3.common.Player
+import com.example.videoplayer.Data.Library.PagedList
+import com.example.videoplayer.Data.Library.indexOfTrackId
+import com.example.videoplayer.Domain.Models.LibraryChange
+import com.example.videoplayer.Domain.Models.Track
+import com.example.videoplayer.Domain.UseCase.MusicPlayerUseCase
+import com.example.videoplayer.Presentation.VideoPlayer.WindowedQueue
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.launch
+
+/**
+ * The music queue, kept by [MusicService] next to the player it feeds. Only a
+ * window of the library sits in the player. It slides on every transition,
+ * whether the UI, the notification or a headset asked for it, and follows
+ * library changes for as long as the service runs, screen or no screen.
+ */
+class MusicQueue(
+    private val player: Player,
+    private val musicPlayerUseCase: MusicPlayerUseCase,
+    private val scope: CoroutineScope
+) {
+
+    private val window = WindowedQueue<Track>(player) { it.toMediaItem() }
+
+    // The library as loaded so far, in repository order
+    private var library: List<Track> = emptyList()
+
+    private val listener = object : Player.Listener {
+        override fun onMediaItemTransition(mediaItem: MediaItem?, reason: Int) {
+            window.recenter(library)
+        }
+    }
+
+    fun start() {
+        player.addListener(listener)
+        // Tracks arrive in pages, so the queue is usable before the scan finishes
+        scope.launch {
+            musicPlayerUseCase.getTrackPages().collect { page ->
+                appendPage(page)
+            }
+            adoptLibrary()
+        }
+        scope.launch {
+            musicPlayerUseCase.observeLibraryChanges().collect { change ->
+                applyLibraryChange(change)
+            }
+        }
+    }
+
+    // The scope goes with the service, only the listener is ours to remove
+    fun stop() {
+        player.removeListener(listener)
+    }
+
+    // False when the track is not in the library loaded so far
+    fun playTrack(id: Long): Boolean {
+        val index = library.indexOfTrackId(id)
+        if (index < 0) return false
+        window.seekTo(library, index)
+        player.play()
+        return true
+    }
+
+    private fun appendPage(page: List<Track>) {
+        val current = library
+        // Stack the pages without copying them
+        library = when {
+            current.isEmpty() -> page
+            current is PagedList -> current.append(page)
+            else -> PagedList<Track>().append(current).append(page)
+        }
+        if (window.isEmpty) {
+            window.load(library, 0)
+        } else {
+            window.recenter(library)
+        }
+    }
+
+    // Once the scan is done, swap the pages for the repository's columnar store.
+    // Same rows in the same order, so the window stays valid.
+    private suspend fun adoptLibrary() {
+        if (library !is PagedList) return
+        val store = musicPlayerUseCase.getAllTracks().first()
+        if (library is PagedList && store.size == library.size) {
+            library = store
+        }
+    }
+
+    // Patch the window in place instead of reloading it, so playback is not interrupted
+    private fun applyLibraryChange(change: LibraryChange) {
+        val previous = library
+        library = change.library
+        if (!window.isEmpty) {
+            window.applyRemovals(previous, library) { it.id in change.removedIds }
+        } else if (library.isNotEmpty()) {
+            window.load(library, 0)
+        }
+    }
+
+    private fun Track.toMediaItem(): MediaItem =
+        MediaItem.Builder()
+            .setUri(uri)
+            .setMediaId(id.toString())
+            .build()
+}
@@ -1,27 +1,63 @@
-// presentation/service/MusicService.kt
+package com.example.videoplayer.Service// presentation/service/MusicService.kt
 import android.app.NotificationChannel
 import android.app.NotificationManager
+import android.content.Intent
 import android.os.Build
 import android.os.Bundle
 import androidx.annotation.OptIn
+import androidx.media3.common.AudioAttributes
+import androidx.media3.common.C
+import androidx.media3.common.MediaItem
 import androidx.media3.common.util.UnstableApi
 import androidx.media3.exoplayer.ExoPlayer
+import androidx.media3.exoplayer.SeekParameters
 import androidx.media3.session.MediaSession
 import androidx.media3.session.MediaSessionService
 import androidx.media3.session.SessionCommand
 import androidx.media3.session.SessionResult
+import com.example.videoplayer.Domain.UseCase.MusicPlayerUseCase
 import com.google.common.util.concurrent.Futures
 import com.google.common.util.concurrent.ListenableFuture
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.cancel
+import org.koin.android.ext.android.inject
 
+/**
+ * Owns the one music player in the app. The UI never holds an ExoPlayer for
+ * music, it drives this one through a MediaController (see [MusicPlayerConnection]),
+ * so playback and its buffers survive Activity and ViewModel churn. The queue
+ * is kept here too ([MusicQueue]): controllers ask for a track by id and the
+ * window around it is maintained whether or not a screen is attached.
+ */
 class MusicService : MediaSessionService() {
 
+    private val musicPlayerUseCase: MusicPlayerUseCase by inject()
+
+    // The player lives on the main looper, and so does everything that touches it
+    private val serviceScope = CoroutineScope(SupervisorJob() + Dispatchers.Main.immediate)
+
     private var mediaSession: MediaSession? = null
     private lateinit var player: ExoPlayer
+    private lateinit var queue: MusicQueue
 
     override fun onCreate() {
         super.onCreate()
 
-        player = ExoPlayer.Builder(this).build()
+        val audioAttributes = AudioAttributes.Builder()
+            .setUsage(C.USAGE_MEDIA)
+            .setContentType(C.AUDIO_CONTENT_TYPE_MUSIC)
+            .build()
+
+        // Audio renderers only and a short local-file buffer, see PlayerProfile
+        player = PlayerProfile.AUDIO.build(this) {
+            setAudioAttributes(audioAttributes, true)
+            setHandleAudioBecomingNoisy(true)
+        }
+
+        queue = MusicQueue(player, musicPlayerUseCase, serviceScope)
+        queue.start()
 
         mediaSession = MediaSession.Builder(this, player)
             .setCallback(MediaSessionCallback())
@@ -34,7 +70,16 @@ class MusicService : MediaSessionService() {
         return mediaSession
     }
 
+    // Keep playing in the background, but don't linger once the task is gone and nothing plays
+    override fun onTaskRemoved(rootIntent: Intent?) {
+        if (!player.playWhenReady || player.mediaItemCount == 0) {
+            stopSelf()
+        }
+    }
+
     override fun onDestroy() {
+        queue.stop()
+        serviceScope.cancel()
         mediaSession?.run {
             player.release()
             release()
@@ -66,6 +111,8 @@ class MusicService : MediaSessionService() {
         ): MediaSession.ConnectionResult {
             val availableSessionCommands = MediaSession.ConnectionResult.DEFAULT_SESSION_COMMANDS.buildUpon()
                 .add(SessionCommand("CUSTOM_COMMAND", Bundle.EMPTY))
+                .add(SessionCommand(COMMAND_SET_SCRUBBING, Bundle.EMPTY))
+                .add(SessionCommand(COMMAND_PLAY_TRACK, Bundle.EMPTY))
                 .build()
 
             return MediaSession.ConnectionResult.AcceptedResultBuilder(session)
@@ -73,17 +120,51 @@ class MusicService : MediaSessionService() {
                 .build()
         }
 
+        // Controllers send items without a playable uri, restore it from the request metadata
+        override fun onAddMediaItems(
+            mediaSession: MediaSession,
+            controller: MediaSession.ControllerInfo,
+            mediaItems: MutableList<MediaItem>
+        ): ListenableFuture<MutableList<MediaItem>> {
+            val resolved = mediaItems.map { item ->
+                val uri = item.requestMetadata.mediaUri
+                if (item.localConfiguration == null && uri != null) {
+                    item.buildUpon().setUri(uri).build()
+                } else item
+            }
+            return Futures.immediateFuture(resolved.toMutableList())
+        }
+
         override fun onCustomCommand(
             session: MediaSession,
             controller: MediaSession.ControllerInfo,
             customCommand: SessionCommand,
             args: Bundle
         ): ListenableFuture<SessionResult> {
+            when (customCommand.customAction) {
+                COMMAND_SET_SCRUBBING -> {
+                    // Keyframe seeks while the UI scrubs, exact ones otherwise
+                    val scrubbing = args.getBoolean(EXTRA_SCRUBBING)
+                    player.setSeekParameters(if (scrubbing) SeekParameters.CLOSEST_SYNC else SeekParameters.EXACT)
+                }
+                COMMAND_PLAY_TRACK -> {
+                    if (!queue.playTrack(args.getLong(EXTRA_TRACK_ID))) {
+                        return Futures.immediateFuture(SessionResult(SessionResult.RESULT_ERROR_BAD_VALUE))
+                    }
+                }
+            }
             return Futures.immediateFuture(SessionResult(SessionResult.RESULT_SUCCESS))
         }
     }
 
     companion object {
         private const val CHANNEL_ID = "MusicPlayerChannel"
+
+        const val COMMAND_SET_SCRUBBING = "com.example.videoplayer.SET_SCRUBBING"
+        const val EXTRA_SCRUBBING = "scrubbing"
+
+        // Play a library track by id; the service finds it and builds the window around it
+        const val COMMAND_PLAY_TRACK = "com.example.videoplayer.PLAY_TRACK"
+        const val EXTRA_TRACK_ID = "track_id"
     }
 }
@@ -0,0 +1,139 @@
+package com.example.videoplayer.Service// presentation/service/PlayerProfile.kt
+import android.content.Context
+import android.os.HandlerThread
+import android.os.Process
+import android.os.SystemClock
+import android.util.Log
+import androidx.annotation.OptIn
+import androidx.media3.common.Player
+import androidx.media3.common.util.UnstableApi
+import androidx.media3.exoplayer.DefaultLoadControl
+import androidx.media3.exoplayer.DefaultRenderersFactory
+import androidx.media3.exoplayer.ExoPlayer
+import androidx.media3.exoplayer.RenderersFactory
+import androidx.media3.exoplayer.analytics.AnalyticsListener
+import androidx.media3.exoplayer.audio.DefaultAudioSink
+import androidx.media3.exoplayer.audio.MediaCodecAudioRenderer
+import androidx.media3.exoplayer.mediacodec.MediaCodecSelector
+import androidx.media3.exoplayer.source.DefaultMediaSourceFactory
+
+private const val PLAYER_PROFILE_LOGGER = "PLAYER_PROFILE"
+
+/**
+ * How a player is built for what it plays. Music only ever needs an audio
+ * renderer and a few seconds of a local file in memory; video keeps the
+ * default renderers and a deeper buffer.
+ *
+ * Build time and each player's time from buffering to ready are logged at
+ * debug level.
+ */
+@OptIn(UnstableApi::class)
+enum class PlayerProfile {
+
+    AUDIO {
+        override fun renderersFactory(context: Context): RenderersFactory =
+            RenderersFactory { eventHandler, _, audioListener, _, _ ->
+                arrayOf(
+                    MediaCodecAudioRenderer(
+                        context,
+                        MediaCodecSelector.DEFAULT,
+                        eventHandler,
+                        audioListener,
+                        DefaultAudioSink.Builder(context).build()
+                    )
+                )
+            }
+
+        // Local files read fast, a short buffer is enough and starts sooner
+        override fun loadControl(): DefaultLoadControl =
+            DefaultLoadControl.Builder()
+                .setBufferDurationsMs(5_000, 15_000, 500, 1_000)
+                .setTargetBufferBytes(2 * 1024 * 1024)
+                .setPrioritizeTimeOverSizeThresholds(true)
+                .build()
+
+        // One step above ExoPlayer's own playback thread, which already runs at THREAD_PRIORITY_AUDIO
+        override fun playbackThreadPriority(): Int? =
+            Process.THREAD_PRIORITY_AUDIO + Process.THREAD_PRIORITY_MORE_FAVORABLE
+    },
+
+    VIDEO {
+        override fun renderersFactory(context: Context): RenderersFactory =
+            DefaultRenderersFactory(context)
+
+        override fun loadControl(): DefaultLoadControl =
+            DefaultLoadControl.Builder()
+                .setBufferDurationsMs(30_000, 60_000, 1_000, 2_000)
+                .build()
+
+        override fun playbackThreadPriority(): Int? = null
+    };
+
+    protected abstract fun renderersFactory(context: Context): RenderersFactory
+    protected abstract fun loadControl(): DefaultLoadControl
+
+    // Null keeps ExoPlayer's internal playback thread
+    protected abstract fun playbackThreadPriority(): Int?
+
+    /**
+     * [mappedFileReads] serves local files through [MappedFileDataSource], which
+     * falls back to the content resolver on its own when a file can't be opened.
+     * Off until the benchmark shows it is worth having.
+     */
+    fun build(
+        context: Context,
+        mappedFileReads: Boolean = false,
+        configure: ExoPlayer.Builder.() -> Unit = {}
+    ): ExoPlayer {
+        val startedAt = SystemClock.elapsedRealtime()
+
+        val builder = ExoPlayer.Builder(context, renderersFactory(context))
+            .setLoadControl(loadControl())
+        if (mappedFileReads) {
+            builder.setMediaSourceFactory(DefaultMediaSourceFactory(MappedFileDataSource.Factory(context)))
+        }
+
+        // The player does not own a looper we hand it, quit the thread once it is released
+        val playbackThread = playbackThreadPriority()?.let { priority ->
+            HandlerThread("$name-playback", priority).also { it.start() }
+        }
+        playbackThread?.let { builder.setPlaybackLooper(it.looper) }
+
+        val player = builder.apply(configure).build()
+        playbackThread?.let { thread ->
+            player.addAnalyticsListener(object : AnalyticsListener {
+                override fun onPlayerReleased(eventTime: AnalyticsListener.EventTime) {
+                    thread.quitSafely()
+                }
+            })
+        }
+
+        Log.d(
+            PLAYER_PROFILE_LOGGER,
+            "$name player built in ${SystemClock.elapsedRealtime() - startedAt} ms, ${player.rendererCount} renderers"
+        )
+        player.addListener(StartupLogger(name))
+        return player
+    }
+
+    // Time from each buffering start to ready, covers first start as well as seeks
+    private class StartupLogger(private val profile: String) : Player.Listener {
+        private var bufferingSince = -1L
+
+        override fun onPlaybackStateChanged(playbackState: Int) {
+            when (playbackState) {
+                Player.STATE_BUFFERING -> if (bufferingSince < 0) {
+                    bufferingSince = SystemClock.elapsedRealtime()
+                }
+                Player.STATE_READY -> if (bufferingSince >= 0) {
+                    Log.d(
+                        PLAYER_PROFILE_LOGGER,
+                        "$profile ready after ${SystemClock.elapsedRealtime() - bufferingSince} ms"
+                    )
+                    bufferingSince = -1L
+                }
+                else -> bufferingSince = -1L
+            }
+        }
+    }
+}
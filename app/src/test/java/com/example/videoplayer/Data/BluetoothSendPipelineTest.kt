@@ -0,0 +1,209 @@
+package com.example.videoplayer.Data
+
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.async
+import kotlinx.coroutines.cancel
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.withTimeout
+import org.junit.After
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.io.ByteArrayOutputStream
+import java.io.IOException
+import java.io.OutputStream
+import java.nio.ByteBuffer
+import java.util.concurrent.CountDownLatch
+
+class BluetoothSendPipelineTest {
+
+    private val ioScope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
+
+    @After
+    fun tearDown() {
+        ioScope.cancel()
+    }
+
+    // Keeps each write separately so the tests can see the packet boundaries
+    private class RecordingOutput : OutputStream() {
+        val writes = ArrayList<ByteArray>()
+
+        override fun write(b: Int) = throw UnsupportedOperationException()
+
+        override fun write(b: ByteArray, off: Int, len: Int) {
+            writes.add(b.copyOfRange(off, off + len))
+        }
+
+        fun bytes(): ByteArray = ByteArrayOutputStream().also { out -> writes.forEach { out.write(it) } }.toByteArray()
+    }
+
+    // Blocks the writer inside write() until released, then fails it or not
+    private class StalledOutput(private val error: IOException?) : OutputStream() {
+        val entered = CountDownLatch(1)
+        val release = CountDownLatch(1)
+
+        override fun write(b: Int) = throw UnsupportedOperationException()
+
+        override fun write(b: ByteArray, off: Int, len: Int) {
+            entered.countDown()
+            release.await()
+            error?.let { throw it }
+        }
+    }
+
+    private suspend fun sendError(pipeline: BluetoothSendPipeline): Throwable? =
+        runCatching { pipeline.send(ByteArray(4)) }.exceptionOrNull()
+
+    @Test
+    fun queuedMessagesArePackedIntoPackets() = runBlocking {
+        val output = RecordingOutput()
+        val scope = CoroutineScope(coroutineContext + SupervisorJob())
+        val pipeline = BluetoothSendPipeline(output, scope, packetSize = 16)
+        val messages = List(3) { message -> ByteArray(10) { (message * 10 + it).toByte() } }
+
+        // The writer cannot run until this coroutine suspends, so all three are queued
+        messages.forEach { pipeline.send(it) }
+        assertEquals(3, pipeline.stats.value.queuedMessages)
+        assertEquals(30L, pipeline.stats.value.queuedBytes)
+
+        pipeline.close()
+        val stats = pipeline.stats.first { it.bytesSent == 30L }
+
+        assertEquals(listOf(16, 14), output.writes.map { it.size })
+        assertArrayEquals(messages.reduce { all, next -> all + next }, output.bytes())
+        assertEquals(SendStats(bytesSent = 30L, writes = 2L), stats)
+        scope.cancel()
+    }
+
+    @Test
+    fun largeMessageIsSplitAtThePacketSize() = runBlocking {
+        val output = RecordingOutput()
+        val scope = CoroutineScope(coroutineContext + SupervisorJob())
+        val pipeline = BluetoothSendPipeline(output, scope, packetSize = 16)
+        val message = ByteArray(40) { it.toByte() }
+
+        pipeline.send(message)
+        pipeline.close()
+        pipeline.stats.first { it.bytesSent == 40L }
+
+        assertEquals(listOf(16, 16, 8), output.writes.map { it.size })
+        assertArrayEquals(message, output.bytes())
+        scope.cancel()
+    }
+
+    @Test
+    fun sentArrayIsCopied() = runBlocking {
+        val output = RecordingOutput()
+        val scope = CoroutineScope(coroutineContext + SupervisorJob())
+        val pipeline = BluetoothSendPipeline(output, scope, packetSize = 16)
+        val message = byteArrayOf(1, 2, 3)
+
+        pipeline.send(message)
+        message.fill(0)
+        pipeline.close()
+        pipeline.stats.first { it.bytesSent == 3L }
+
+        assertArrayEquals(byteArrayOf(1, 2, 3), output.bytes())
+        scope.cancel()
+    }
+
+    @Test
+    fun sendAndAwaitReturnsOnceWritten() = runBlocking {
+        val output = RecordingOutput()
+        val scope = CoroutineScope(coroutineContext + SupervisorJob())
+        val pipeline = BluetoothSendPipeline(output, scope, packetSize = 4)
+        val message = ByteArray(10) { it.toByte() }
+
+        pipeline.sendAndAwait(ByteBuffer.wrap(message))
+
+        assertArrayEquals(message, output.bytes())
+        scope.cancel()
+    }
+
+    @Test
+    fun sendAndAwaitFailsWhenTheWriteDoes() = runBlocking {
+        val output = StalledOutput(IOException("boom"))
+        val pipeline = BluetoothSendPipeline(output, ioScope, packetSize = 4)
+        output.release.countDown()
+
+        val error = withTimeout(5000) {
+            runCatching { pipeline.sendAndAwait(ByteBuffer.wrap(ByteArray(4))) }.exceptionOrNull()
+        }
+
+        assertTrue(error is IOException)
+        assertEquals("boom", error?.message)
+    }
+
+    @Test
+    fun sendAndAwaitFailsWhenItsMessageIsDropped() = runBlocking {
+        val output = StalledOutput(error = null)
+        val pipeline = BluetoothSendPipeline(output, ioScope, packetSize = 4)
+
+        pipeline.send(ByteArray(4))
+        output.entered.await()
+        // Queued behind the stalled write, then dropped by cancel()
+        val waiting = ioScope.async { pipeline.sendAndAwait(ByteBuffer.wrap(ByteArray(4))) }
+        pipeline.stats.first { it.queuedMessages == 1 }
+
+        pipeline.cancel()
+        val error = withTimeout(5000) { runCatching { waiting.await() }.exceptionOrNull() }
+        output.release.countDown()
+
+        assertTrue(error is IOException)
+    }
+
+    @Test
+    fun sendAfterCloseFailsWithIOException() = runBlocking {
+        val scope = CoroutineScope(coroutineContext + SupervisorJob())
+        val pipeline = BluetoothSendPipeline(RecordingOutput(), scope, packetSize = 16)
+
+        pipeline.close()
+
+        assertTrue(sendError(pipeline) is IOException)
+        scope.cancel()
+    }
+
+    @Test
+    fun writeErrorFailsSendersWaitingOnAFullQueue() = runBlocking {
+        val output = StalledOutput(IOException("boom"))
+        val pipeline = BluetoothSendPipeline(output, ioScope, packetSize = 4, capacity = 1)
+
+        pipeline.send(ByteArray(4))
+        output.entered.await()
+        pipeline.send(ByteArray(4))                       // fills the buffer
+        val waiting = ioScope.async { pipeline.send(ByteArray(4)) }
+        pipeline.stats.first { it.queuedMessages == 2 }
+
+        output.release.countDown()
+        val error = withTimeout(5000) { runCatching { waiting.await() }.exceptionOrNull() }
+
+        assertTrue(error is IOException)
+        assertEquals("boom", error?.message)
+        assertEquals("boom", sendError(pipeline)?.message)
+        assertEquals(0, pipeline.stats.value.queuedMessages)
+    }
+
+    @Test
+    fun cancelFailsSendersWaitingOnAFullQueue() = runBlocking {
+        val output = StalledOutput(error = null)
+        val pipeline = BluetoothSendPipeline(output, ioScope, packetSize = 4, capacity = 1)
+
+        pipeline.send(ByteArray(4))
+        output.entered.await()
+        pipeline.send(ByteArray(4))
+        val waiting = ioScope.async { pipeline.send(ByteArray(4)) }
+        pipeline.stats.first { it.queuedMessages == 2 }
+
+        pipeline.cancel()
+        val error = withTimeout(5000) { runCatching { waiting.await() }.exceptionOrNull() }
+        output.release.countDown()
+
+        assertTrue(error is IOException)
+        assertTrue(sendError(pipeline) is IOException)
+        assertEquals(0, pipeline.stats.value.queuedMessages)
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.videoplayer.Data.Library
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class LongIntMapTest {
+
+    @Test
+    fun getReturnsWhatWasPut() {
+        val map = LongIntMap(4)
+        map.put(1000L, 0)
+        map.put(-7L, 1)
+        map.put(0L, 2)
+
+        assertEquals(0, map.get(1000L))
+        assertEquals(1, map.get(-7L))
+        assertEquals(2, map.get(0L))
+        assertEquals(3, map.size)
+    }
+
+    @Test
+    fun missingKeyReturnsDefault() {
+        val map = LongIntMap(4)
+        map.put(5L, 3)
+
+        assertEquals(LongIntMap.EMPTY, map.get(6L))
+        assertEquals(42, map.get(6L, 42))
+        assertFalse(6L in map)
+        assertTrue(5L in map)
+    }
+
+    @Test
+    fun putOverwritesWithoutGrowing() {
+        val map = LongIntMap(4)
+        map.put(5L, 3)
+        map.put(5L, 9)
+
+        assertEquals(9, map.get(5L))
+        assertEquals(1, map.size)
+    }
+
+    @Test
+    fun holdsExpectedSizeOfMediaStoreLikeIds() {
+        // Dense ids and ids a power of two apart both probe past collisions
+        val ids = (1L..5000L) + (1..5000).map { it.toLong() shl 20 }
+        val map = LongIntMap(ids.size)
+        ids.forEachIndexed { index, id -> map.put(id, index) }
+
+        assertEquals(ids.size, map.size)
+        ids.forEachIndexed { index, id -> assertEquals(index, map.get(id)) }
+        assertFalse(5001L in map)
+    }
+
+    @Test(expected = IllegalArgumentException::class)
+    fun negativeValueIsRejected() {
+        LongIntMap(4).put(1L, -1)
+    }
+
+    @Test(expected = IllegalStateException::class)
+    fun putPastCapacityFails() {
+        // Room for one entry; the last slot always stays empty so probes terminate
+        val map = LongIntMap(1)
+        map.put(1L, 0)
+        map.put(2L, 1)
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.videoplayer.Data.Local
+
+import com.example.videoplayer.Data.Library.TrackStore
+import com.example.videoplayer.Domain.Models.SyncWatermark
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotNull
+import org.junit.Assert.assertNull
+import org.junit.Test
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
+
+class TrackIndexStoreTest {
+
+    private fun library(): TrackStore = TrackStore.Builder().apply {
+        add(11L, "Blue in Green", "Miles Davis", "Kind of Blue", 337_000L, "/music/jazz", "02.flac")
+        add(12L, "So What", "Miles Davis", "Kind of Blue", 562_000L, "/music/jazz", "01.flac")
+        add(40L, "Untitled", "<unknown>", "<unknown>", 1_000L, "", "loose.mp3")
+    }.build()
+
+    private fun encode(tracks: TrackStore, watermark: SyncWatermark): ByteArray {
+        val bytes = ByteArrayOutputStream()
+        DataOutputStream(bytes).use { TrackIndexStore.writeSnapshot(it, tracks, watermark) }
+        return bytes.toByteArray()
+    }
+
+    private fun decode(bytes: ByteArray): TrackIndexSnapshot? =
+        DataInputStream(ByteArrayInputStream(bytes)).use { TrackIndexStore.readSnapshot(it) }
+
+    @Test
+    fun roundTripKeepsEveryColumnAndTheWatermark() {
+        val original = library()
+        val watermark = SyncWatermark(generation = 1234L, dateSeconds = 1_700_000_000L, version = "a1b2c3")
+
+        val snapshot = decode(encode(original, watermark))
+
+        assertNotNull(snapshot)
+        val tracks = snapshot!!.tracks
+        assertEquals(watermark, snapshot.watermark)
+        assertEquals(original.size, tracks.size)
+        for (index in 0 until original.size) {
+            assertEquals(original.idAt(index), tracks.idAt(index))
+            assertEquals(original.titleAt(index), tracks.titleAt(index))
+            assertEquals(original.artistAt(index), tracks.artistAt(index))
+            assertEquals(original.albumAt(index), tracks.albumAt(index))
+            assertEquals(original.durationAt(index), tracks.durationAt(index))
+            assertEquals(original.pathAt(index), tracks.pathAt(index))
+        }
+        assertEquals("/music/jazz/02.flac", tracks.pathAt(0))
+        assertEquals("loose.mp3", tracks.pathAt(2))
+        // Dictionaries come back shared, not one string per row
+        assertEquals(listOf("Miles Davis", "<unknown>"), tracks.artistNames)
+        assertEquals(1, tracks.indexOfId(12L))
+    }
+
+    @Test
+    fun emptyLibraryRoundTrips() {
+        val snapshot = decode(encode(TrackStore.EMPTY, SyncWatermark()))
+
+        assertNotNull(snapshot)
+        assertEquals(0, snapshot!!.tracks.size)
+        assertEquals(SyncWatermark(), snapshot.watermark)
+    }
+
+    @Test
+    fun otherVersionIsIgnored() {
+        val bytes = encode(library(), SyncWatermark(generation = 1L))
+        // Version is the big-endian int after the magic
+        bytes[7] = (TrackIndexStore.VERSION + 1).toByte()
+
+        assertNull(decode(bytes))
+    }
+
+    @Test
+    fun otherMagicIsIgnored() {
+        val bytes = encode(library(), SyncWatermark(generation = 1L))
+        bytes[0] = (bytes[0] + 1).toByte()
+
+        assertNull(decode(bytes))
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.videoplayer.Data.Search
+
+import com.example.videoplayer.Domain.Models.LibraryChange
+import com.example.videoplayer.Domain.Models.Track
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+
+class TrackSearchIndexTest {
+
+    private val library = listOf(
+        Track(1L, "So What", "Miles Davis", "Kind of Blue", 0L),
+        Track(2L, "Blue in Green", "Miles Davis", "Kind of Blue", 0L),
+        Track(3L, "Halo", "Beyoncé", "I Am... Sasha Fierce", 0L),
+        Track(4L, "Giant Steps", "John Coltrane", "Giant Steps", 0L)
+    )
+
+    private lateinit var index: TrackSearchIndex
+
+    @Before
+    fun setUp() {
+        index = TrackSearchIndex()
+        index.rebuild(library)
+    }
+
+    private fun change(
+        added: List<Track> = emptyList(),
+        updated: List<Track> = emptyList(),
+        removedIds: Set<Long> = emptySet()
+    ) = LibraryChange(added, updated, removedIds, library = emptyList())
+
+    private fun search(query: String) = index.search(query, limit = 10)
+
+    @Test
+    fun emptyBeforeBuild() {
+        val unbuilt = TrackSearchIndex()
+
+        assertFalse(unbuilt.isBuilt)
+        assertEquals(0, unbuilt.search("blue", 10).size)
+    }
+
+    @Test
+    fun tokensMatchAsPrefixesAcrossFields() {
+        assertArrayEquals(longArrayOf(1L, 2L), search("mil"))
+        assertArrayEquals(longArrayOf(1L), search("miles wh"))
+        assertArrayEquals(longArrayOf(4L), search("GIANT"))
+        assertEquals(0, search("miles coltrane").size)
+    }
+
+    @Test
+    fun accentsAreFolded() {
+        assertArrayEquals(longArrayOf(3L), search("beyonce"))
+    }
+
+    @Test
+    fun nearMissFallsBackToEditDistance() {
+        assertArrayEquals(longArrayOf(4L), search("coltrnae"))
+        // Too short to guess at
+        assertEquals(0, search("hlo").size)
+    }
+
+    @Test
+    fun limitCapsResults() {
+        assertArrayEquals(longArrayOf(1L), index.search("miles", limit = 1))
+    }
+
+    @Test
+    fun addedTracksComeFromTheOverlay() {
+        assertTrue(index.apply(change(added = listOf(Track(5L, "Blue Train", "John Coltrane", "Blue Train", 0L)))))
+
+        // Base rows first, then overlay rows; "Kind of Blue" matches too
+        assertArrayEquals(longArrayOf(1L, 2L, 5L), search("blue"))
+        assertArrayEquals(longArrayOf(4L, 5L), search("coltrane"))
+    }
+
+    @Test
+    fun updatedTrackIsTombstonedInTheBase() {
+        index.apply(change(updated = listOf(Track(2L, "Flamenco Sketches", "Miles Davis", "Kind of Blue", 0L))))
+
+        assertArrayEquals(longArrayOf(2L), search("flamenco"))
+        assertEquals(0, search("green").size)
+        // Still one hit for the album, from the overlay copy rather than the base row
+        assertArrayEquals(longArrayOf(1L, 2L), search("kind"))
+    }
+
+    @Test
+    fun removedTracksDisappearFromBaseAndOverlay() {
+        index.apply(change(added = listOf(Track(5L, "Blue Train", "John Coltrane", "Blue Train", 0L))))
+        index.apply(change(removedIds = setOf(2L, 5L)))
+
+        assertEquals(0, search("blue train").size)
+        assertEquals(0, search("green").size)
+        assertArrayEquals(longArrayOf(1L), search("miles"))
+    }
+
+    @Test
+    fun removedIdCanComeBack() {
+        index.apply(change(removedIds = setOf(4L)))
+        index.apply(change(added = listOf(Track(4L, "Naima", "John Coltrane", "Giant Steps", 0L))))
+
+        assertArrayEquals(longArrayOf(4L), search("naima"))
+        assertArrayEquals(longArrayOf(4L), search("giant"))
+    }
+
+    @Test
+    fun rebuildClearsTheOverlay() {
+        index.apply(change(removedIds = setOf(1L)))
+        index.rebuild(library)
+
+        assertArrayEquals(longArrayOf(1L), search("what"))
+    }
+
+    @Test
+    fun oversizedOverlayAsksForRebuild() {
+        val added = (100L until 2101L).map { Track(it, "Track $it", "Artist", "Album", 0L) }
+
+        assertFalse(index.apply(change(added = added)))
+        // Nothing was folded in
+        assertEquals(0, search("track").size)
+    }
+}
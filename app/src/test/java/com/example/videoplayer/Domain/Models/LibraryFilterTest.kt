@@ -0,0 +1,86 @@
+package com.example.videoplayer.Domain.Models
+
+import android.provider.MediaStore
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Test
+
+class LibraryFilterTest {
+
+    private val music = "${MediaStore.Audio.Media.IS_MUSIC} != 0"
+    private val noRingtones = " AND (${MediaStore.Audio.Media.IS_RINGTONE} = 0)" +
+        " AND (${MediaStore.Audio.Media.IS_NOTIFICATION} = 0)" +
+        " AND (${MediaStore.Audio.Media.IS_ALARM} = 0)"
+
+    @Test
+    fun defaultAudioSelectionKeepsMusicOnly() {
+        val selection = LibraryFilter().toAudioSelection()
+
+        assertEquals(music + noRingtones, selection.selection)
+        assertNull(selection.selectionArgs)
+    }
+
+    @Test
+    fun ringtonesCanBeIncluded() {
+        val selection = LibraryFilter(includeRingtones = true).toAudioSelection()
+
+        assertEquals(music, selection.selection)
+    }
+
+    @Test
+    fun durationAndFoldersAreBoundAsArguments() {
+        val selection = LibraryFilter(
+            minDurationMs = 30_000L,
+            excludedFolders = linkedSetOf("/storage/emulated/0/Ringtones", "/sdcard/My_Music 100%/")
+        ).toAudioSelection()
+
+        val like = "${MediaStore.MediaColumns.DATA} NOT LIKE ? ESCAPE '\\'"
+        assertEquals(
+            music + noRingtones +
+                " AND (${MediaStore.Audio.Media.DURATION} >= ?)" +
+                " AND ($like) AND ($like)",
+            selection.selection
+        )
+        // LIKE wildcards in a path are escaped, a trailing slash is dropped
+        assertArrayEquals(
+            arrayOf("30000", "/storage/emulated/0/Ringtones/%", "/sdcard/My\\_Music 100\\%/%"),
+            selection.selectionArgs
+        )
+    }
+
+    @Test
+    fun defaultVideoSelectionIsEverything() {
+        val selection = LibraryFilter().toVideoSelection()
+
+        assertNull(selection.selection)
+        assertNull(selection.selectionArgs)
+    }
+
+    @Test
+    fun videoSelectionUsesTheVideoDurationColumn() {
+        val selection = LibraryFilter(minDurationMs = 5_000L).toVideoSelection()
+
+        assertEquals("${MediaStore.Video.Media.DURATION} >= ?", selection.selection)
+        assertArrayEquals(arrayOf("5000"), selection.selectionArgs)
+    }
+
+    @Test
+    fun platformGatedClausesAreLeftOutOnOlderReleases() {
+        // Build.VERSION.SDK_INT is 0 against the stub android.jar, below both the
+        // recordings (S) and volume (Q) columns
+        val selection = LibraryFilter(includeRecordings = false, volumes = setOf("external_primary"))
+            .toAudioSelection()
+
+        assertEquals(music + noRingtones, selection.selection)
+        assertNull(selection.selectionArgs)
+    }
+
+    @Test
+    fun andWrapsEachClause() {
+        val selection = MediaSelection.ALL.and("a = ?", "1").and("b IN (?, ?)", "2", "3")
+
+        assertEquals("a = ? AND (b IN (?, ?))", selection.selection)
+        assertArrayEquals(arrayOf("1", "2", "3"), selection.selectionArgs)
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.videoplayer.Presentation.VideoPlayer
+
+import androidx.media3.common.MediaItem
+import androidx.media3.common.Player
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.lang.reflect.Proxy
+
+class WindowedQueueTest {
+
+    private val playlist = (0 until 100).toList()
+    private val fake = FakePlayer()
+    private val queue = WindowedQueue<Int>(fake.player, behind = 2, ahead = 4) {
+        MediaItem.Builder().setMediaId(it.toString()).build()
+    }
+
+    @Test
+    fun loadCentresTheWindowOnTheIndex() {
+        queue.load(playlist, 50)
+
+        assertEquals((48..54).toList(), fake.rows())
+        assertEquals(48, queue.windowStart)
+        assertEquals(50, queue.currentIndex)
+        assertTrue(fake.prepared)
+    }
+
+    @Test
+    fun loadClampsAtTheEnds() {
+        queue.load(playlist, 1)
+        assertEquals((0..5).toList(), fake.rows())
+        assertEquals(1, queue.currentIndex)
+
+        queue.load(playlist, 500)
+        assertEquals((97..99).toList(), fake.rows())
+        assertEquals(99, queue.currentIndex)
+    }
+
+    @Test
+    fun loadingAnEmptyPlaylistClearsThePlayer() {
+        queue.load(playlist, 50)
+        queue.load(emptyList(), 0)
+
+        assertTrue(queue.isEmpty)
+        assertEquals(-1, queue.currentIndex)
+    }
+
+    @Test
+    fun seekInsideTheWindowKeepsTheItems() {
+        queue.load(playlist, 50)
+        val before = fake.timelineChanges
+
+        queue.seekTo(playlist, 53)
+
+        assertEquals(53, queue.currentIndex)
+        assertEquals(before, fake.timelineChanges)
+    }
+
+    @Test
+    fun seekOutsideTheWindowReloads() {
+        queue.load(playlist, 50)
+        queue.seekTo(playlist, 80)
+
+        assertEquals((78..84).toList(), fake.rows())
+        assertEquals(80, queue.currentIndex)
+    }
+
+    @Test
+    fun recenterRefillsAheadAndTrimsBehind() {
+        queue.load(playlist, 50)
+        fake.currentIndex = 5 // playback moved on to row 53
+
+        queue.recenter(playlist)
+
+        assertEquals((51..57).toList(), fake.rows())
+        assertEquals(51, queue.windowStart)
+        assertEquals(53, queue.currentIndex)
+    }
+
+    @Test
+    fun recenterLeavesASmallSkipAlone() {
+        queue.load(playlist, 50)
+        fake.currentIndex = 3
+        val before = fake.timelineChanges
+
+        queue.recenter(playlist)
+
+        assertEquals(51, queue.currentIndex)
+        assertEquals(before, fake.timelineChanges)
+    }
+
+    @Test
+    fun recenterTrimsAheadAndRefillsBehind() {
+        // Items adopted from a player that held a much larger window
+        fake.items.addAll(playlist.subList(40, 60).map { MediaItem.Builder().setMediaId(it.toString()).build() })
+        queue.anchorAt(40)
+
+        queue.recenter(playlist)
+
+        assertEquals((38..44).toList(), fake.rows())
+        assertEquals(40, queue.currentIndex)
+    }
+
+    @Test
+    fun recenterStopsAtTheEndOfThePlaylist() {
+        queue.load(playlist, 98)
+        fake.currentIndex = 3
+        queue.recenter(playlist)
+
+        assertEquals((96..99).toList(), fake.rows())
+        assertEquals(99, queue.currentIndex)
+    }
+
+    @Test
+    fun removalsReanchorTheWindow() {
+        queue.load(playlist, 50)
+        val isRemoved = { row: Int -> row < 10 || row == 53 }
+        val remaining = playlist.filterNot(isRemoved)
+
+        queue.applyRemovals(playlist, remaining, isRemoved)
+
+        assertEquals(listOf(48, 49, 50, 51, 52, 54), fake.rows())
+        assertEquals(38, queue.windowStart)
+        assertEquals(50, remaining[queue.currentIndex])
+    }
+
+    // Just the parts of Player the queue uses, backed by a plain list
+    private class FakePlayer {
+        val items = ArrayList<MediaItem>()
+        var currentIndex = 0
+        var prepared = false
+        var timelineChanges = 0
+
+        fun rows(): List<Int> = items.map { it.mediaId.toInt() }
+
+        @Suppress("UNCHECKED_CAST")
+        val player = Proxy.newProxyInstance(
+            Player::class.java.classLoader,
+            arrayOf(Player::class.java)
+        ) { proxy, method, args ->
+            val arg = args ?: emptyArray()
+            when (method.name) {
+                "getMediaItemCount" -> items.size
+                "getCurrentMediaItemIndex" -> currentIndex
+                "prepare" -> { prepared = true; null }
+                "seekToDefaultPosition" -> { currentIndex = arg[0] as Int; null }
+                "clearMediaItems" -> { timelineChanges++; items.clear(); currentIndex = 0; null }
+                "setMediaItems" -> {
+                    timelineChanges++
+                    items.clear()
+                    items.addAll(arg[0] as List<MediaItem>)
+                    currentIndex = if (arg.size > 1) arg[1] as Int else 0
+                    null
+                }
+                "addMediaItems" -> {
+                    timelineChanges++
+                    if (arg.size == 1) {
+                        items.addAll(arg[0] as List<MediaItem>)
+                    } else {
+                        val index = arg[0] as Int
+                        val added = arg[1] as List<MediaItem>
+                        items.addAll(index, added)
+                        if (index <= currentIndex) currentIndex += added.size
+                    }
+                    null
+                }
+                "removeMediaItems" -> {
+                    timelineChanges++
+                    val from = arg[0] as Int
+                    val to = arg[1] as Int
+                    items.subList(from, to).clear()
+                    if (to <= currentIndex) currentIndex -= to - from
+                    null
+                }
+                "removeMediaItem" -> {
+                    timelineChanges++
+                    val index = arg[0] as Int
+                    items.removeAt(index)
+                    if (index < currentIndex) currentIndex--
+                    null
+                }
+                "hashCode" -> System.identityHashCode(proxy)
+                "equals" -> proxy === arg[0]
+                "toString" -> "FakePlayer$items"
+                else -> throw UnsupportedOperationException(method.name)
+            }
+        } as Player
+    }
+}